@@ -0,0 +1,155 @@
+package com.example.apigateway.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.HasRouteId;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Допуск запросов на маршрут до проксирования: token bucket на пользователя
+ * (или на IP клиента, если токена нет, например для /api/auth/**) и предел
+ * одновременных запросов. Лимиты задаются в аргументах фильтра маршрута,
+ * состояние хранится в памяти экземпляра gateway.
+ */
+@Component
+public class AdmissionGatewayFilterFactory extends AbstractGatewayFilterFactory<AdmissionGatewayFilterFactory.Config> {
+
+    private final MeterRegistry meterRegistry;
+    // Маршруты пересобираются при каждом RefreshRoutesEvent (в том числе от
+    // discovery), поэтому состояние хранится по routeId, а не в фильтре
+    private final ConcurrentMap<String, RouteState> routes = new ConcurrentHashMap<>();
+
+    public AdmissionGatewayFilterFactory(MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        String routeId = config.getRouteId() != null ? config.getRouteId() : "unknown";
+        RouteState state = routes.computeIfAbsent(routeId, id -> new RouteState(id, config.getMaxClients()));
+        Cache<String, TokenBucket> buckets = state.buckets;
+        AtomicInteger inFlight = state.inFlight;
+        Counter rateLimited = state.rateLimited;
+        Counter overloaded = state.overloaded;
+
+        // Раньше остальных фильтров маршрута: отказ не должен стоить проксирования
+        return new OrderedGatewayFilter((exchange, chain) -> {
+            if (config.getReplenishRate() > 0) {
+                TokenBucket bucket = buckets.get(clientKey(exchange),
+                        key -> new TokenBucket(config.getReplenishRate(), config.getBurstCapacity()));
+                long waitNanos = bucket.tryAcquire(System.nanoTime());
+                if (waitNanos > 0) {
+                    rateLimited.increment();
+                    long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+                    return reject(exchange, HttpStatus.TOO_MANY_REQUESTS, retryAfter);
+                }
+            }
+            // Подписка SSE держит соединение часами и не должна занимать слот
+            if (config.getMaxInFlight() <= 0 || isEventStream(exchange)) {
+                return chain.filter(exchange);
+            }
+            if (inFlight.incrementAndGet() > config.getMaxInFlight()) {
+                inFlight.decrementAndGet();
+                overloaded.increment();
+                return reject(exchange, HttpStatus.SERVICE_UNAVAILABLE, 1);
+            }
+            return chain.filter(exchange).doFinally(signal -> inFlight.decrementAndGet());
+        }, Ordered.HIGHEST_PRECEDENCE);
+    }
+
+    private final class RouteState {
+        final Cache<String, TokenBucket> buckets;
+        final AtomicInteger inFlight = new AtomicInteger();
+        final Counter rateLimited;
+        final Counter overloaded;
+
+        RouteState(String routeId, long maxClients) {
+            this.buckets = Caffeine.newBuilder()
+                    .maximumSize(maxClients)
+                    .expireAfterAccess(Duration.ofMinutes(10))
+                    .build();
+            Gauge.builder("gateway.admission.in.flight", inFlight, AtomicInteger::get)
+                    .description("Requests currently forwarded on the route")
+                    .tag("route", routeId)
+                    .register(meterRegistry);
+            this.rateLimited = rejectedCounter(routeId, "rate_limit");
+            this.overloaded = rejectedCounter(routeId, "concurrency");
+        }
+
+        private Counter rejectedCounter(String routeId, String reason) {
+            return Counter.builder("gateway.admission.rejected")
+                    .description("Requests rejected before being forwarded")
+                    .tag("route", routeId)
+                    .tag("reason", reason)
+                    .register(meterRegistry);
+        }
+    }
+
+    private static String clientKey(ServerWebExchange exchange) {
+        JwtPrincipal principal = exchange.getAttribute(JwtVerifier.PRINCIPAL_ATTRIBUTE);
+        if (principal != null) {
+            return principal.userId() != null ? "user:" + principal.userId() : "name:" + principal.username();
+        }
+        InetSocketAddress remote = exchange.getRequest().getRemoteAddress();
+        return "ip:" + (remote != null && remote.getAddress() != null ? remote.getAddress().getHostAddress() : "unknown");
+    }
+
+    private static boolean isEventStream(ServerWebExchange exchange) {
+        return exchange.getRequest().getHeaders().getAccept().stream()
+                .anyMatch(MediaType.TEXT_EVENT_STREAM::equalsTypeAndSubtype);
+    }
+
+    private static Mono<Void> reject(ServerWebExchange exchange, HttpStatus status, long retryAfterSeconds) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(status);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        return response.setComplete();
+    }
+
+    public static class Config implements HasRouteId {
+        // Токенов в секунду на клиента; 0 — без ограничения частоты
+        private double replenishRate;
+        private int burstCapacity = 1;
+        // Одновременных запросов на маршрут; 0 — без ограничения
+        private int maxInFlight;
+        private long maxClients = 100_000;
+        private String routeId;
+
+        // Геттеры и сеттеры
+        public double getReplenishRate() { return replenishRate; }
+        public void setReplenishRate(double replenishRate) { this.replenishRate = replenishRate; }
+        public int getBurstCapacity() { return burstCapacity; }
+        public void setBurstCapacity(int burstCapacity) { this.burstCapacity = burstCapacity; }
+        public int getMaxInFlight() { return maxInFlight; }
+        public void setMaxInFlight(int maxInFlight) { this.maxInFlight = maxInFlight; }
+        public long getMaxClients() { return maxClients; }
+        public void setMaxClients(long maxClients) { this.maxClients = maxClients; }
+
+        @Override
+        public String getRouteId() { return routeId; }
+
+        @Override
+        public void setRouteId(String routeId) { this.routeId = routeId; }
+    }
+}
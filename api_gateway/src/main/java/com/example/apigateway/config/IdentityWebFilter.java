@@ -0,0 +1,60 @@
+package com.example.apigateway.config;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * Проверяет JWT один раз на входе в gateway. Присланные клиентом
+ * X-User-* заголовки всегда удаляются; для валидного токена вместо них
+ * добавляются подписанные IdentityHeaders и заполняется SecurityContext.
+ */
+public class IdentityWebFilter implements WebFilter {
+
+    private final JwtVerifier jwtVerifier;
+    private final IdentityHeaders identityHeaders;
+
+    public IdentityWebFilter(JwtVerifier jwtVerifier, IdentityHeaders identityHeaders) {
+        this.jwtVerifier = jwtVerifier;
+        this.identityHeaders = identityHeaders;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        JwtPrincipal principal = verify(exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION));
+        ServerWebExchange mutated = exchange.mutate()
+                .request(request -> request.headers(headers -> {
+                    if (principal != null) {
+                        identityHeaders.write(headers, principal);
+                    } else {
+                        IdentityHeaders.strip(headers);
+                    }
+                }))
+                .build();
+        if (principal == null) {
+            return chain.filter(mutated);
+        }
+
+        mutated.getAttributes().put(JwtVerifier.PRINCIPAL_ATTRIBUTE, principal);
+        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(principal, null,
+                principal.roles().stream().map(SimpleGrantedAuthority::new).toList());
+        return chain.filter(mutated)
+                .contextWrite(ReactiveSecurityContextHolder.withAuthentication(authentication));
+    }
+
+    private JwtPrincipal verify(String authHeader) {
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return null;
+        }
+        try {
+            return jwtVerifier.verify(authHeader.substring(7));
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package com.example.apigateway.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.HasRouteId;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Одинаковые одновременные GET одного пользователя (путь, query, Accept,
+ * If-None-Match) уходят в сервис одним запросом, ответ делится между всеми.
+ * При ttl > 0 ответ дополнительно хранится в микрокэше с бюджетом по байтам.
+ * Любой изменяющий запрос пользователя (на любом маршруте, см.
+ * ResponseCacheInvalidationFilter) увеличивает его поколение, и старые
+ * записи перестают находиться.
+ */
+@Component
+public class ResponseCacheGatewayFilterFactory extends AbstractGatewayFilterFactory<ResponseCacheGatewayFilterFactory.Config> {
+
+    private final MeterRegistry meterRegistry;
+    // Как и в AdmissionGatewayFilterFactory: состояние переживает пересборку маршрутов
+    private final ConcurrentMap<String, RouteState> routes = new ConcurrentHashMap<>();
+    private final Cache<String, AtomicLong> generations = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .expireAfterAccess(Duration.ofMinutes(10))
+            .build();
+
+    public ResponseCacheGatewayFilterFactory(MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        String routeId = config.getRouteId() != null ? config.getRouteId() : "unknown";
+        RouteState state = routes.computeIfAbsent(routeId, id -> new RouteState(id, config.getMaxBytes(), config.getTtl()));
+
+        // Порядок ниже NettyWriteResponseFilter, иначе тело пишется мимо декоратора
+        return new OrderedGatewayFilter((exchange, chain) -> {
+            JwtPrincipal principal = exchange.getAttribute(JwtVerifier.PRINCIPAL_ATTRIBUTE);
+            if (principal == null) {
+                return chain.filter(exchange);
+            }
+            // Изменяющие запросы сбрасывают поколение в ResponseCacheInvalidationFilter
+            if (!HttpMethod.GET.equals(exchange.getRequest().getMethod())) {
+                return chain.filter(exchange);
+            }
+            String user = userKey(principal);
+            if (isStreaming(exchange.getRequest())) {
+                state.bypass.increment();
+                return chain.filter(exchange);
+            }
+
+            long generation = generation(user);
+            String key = key(user, generation, exchange.getRequest());
+            CachedResponse cached = state.cache != null ? state.cache.getIfPresent(key) : null;
+            if (cached != null) {
+                state.hits.increment();
+                return cached.writeTo(exchange.getResponse());
+            }
+
+            Sinks.One<CachedResponse> sink = Sinks.one();
+            Mono<CachedResponse> shared = sink.asMono();
+            Mono<CachedResponse> existing = state.inFlight.putIfAbsent(key, shared);
+            if (existing != null) {
+                state.coalesced.increment();
+                return existing
+                        .map(Optional::of)
+                        .defaultIfEmpty(Optional.empty())
+                        .onErrorReturn(Optional.empty())
+                        .flatMap(response -> response.isPresent()
+                                ? response.get().writeTo(exchange.getResponse())
+                                : chain.filter(exchange));
+            }
+
+            state.misses.increment();
+            return lead(exchange, chain, config, state, key, user, generation, sink)
+                    .doFinally(signal -> {
+                        state.inFlight.remove(key, shared);
+                        sink.tryEmitEmpty();
+                    });
+        }, NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1);
+    }
+
+    // Ответ ведущего запроса уходит клиенту потоком, копия тела накапливается
+    // только пока не превышен maxEntryBytes
+    private Mono<Void> lead(ServerWebExchange exchange, GatewayFilterChain chain, Config config, RouteState state,
+                            String key, String user, long generation, Sinks.One<CachedResponse> sink) {
+        ServerHttpResponse original = exchange.getResponse();
+        ServerHttpResponseDecorator capturing = new ServerHttpResponseDecorator(original) {
+            private final ByteArrayOutputStream copy = new ByteArrayOutputStream();
+            private boolean shareable = true;
+
+            @Override
+            public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                return super.writeWith(Flux.from(body)
+                        .doOnNext(this::capture)
+                        .doOnComplete(this::publish));
+            }
+
+            @Override
+            public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+                shareable = false;
+                return super.writeAndFlushWith(body);
+            }
+
+            private void capture(DataBuffer buffer) {
+                int length = buffer.readableByteCount();
+                if (!shareable || copy.size() + length > config.getMaxEntryBytes()) {
+                    shareable = false;
+                    return;
+                }
+                ByteBuffer bytes = ByteBuffer.allocate(length);
+                buffer.toByteBuffer(buffer.readPosition(), bytes, 0, length);
+                copy.write(bytes.array(), 0, length);
+            }
+
+            private void publish() {
+                if (!shareable || !HttpStatus.OK.equals(getStatusCode())) {
+                    return;
+                }
+                CachedResponse response = CachedResponse.of(getStatusCode(), getHeaders(), copy.toByteArray());
+                if (state.cache != null && generation(user) == generation) {
+                    state.cache.put(key, response);
+                }
+                sink.tryEmitValue(response);
+            }
+        };
+        return chain.filter(exchange.mutate().response(capturing).build());
+    }
+
+    static String userKey(JwtPrincipal principal) {
+        return principal.userId() != null ? "user:" + principal.userId() : "name:" + principal.username();
+    }
+
+    long generation(String user) {
+        return generations.get(user, key -> new AtomicLong()).get();
+    }
+
+    void invalidate(String user) {
+        generations.get(user, key -> new AtomicLong()).incrementAndGet();
+    }
+
+    private static boolean isStreaming(ServerHttpRequest request) {
+        return request.getHeaders().getAccept().stream()
+                .anyMatch(type -> MediaType.TEXT_EVENT_STREAM.equalsTypeAndSubtype(type)
+                        || MediaType.APPLICATION_NDJSON.equalsTypeAndSubtype(type));
+    }
+
+    private static String key(String user, long generation, ServerHttpRequest request) {
+        HttpHeaders headers = request.getHeaders();
+        return user + '|' + generation + '|' + request.getURI().getRawPath() + '?' + request.getURI().getRawQuery()
+                + '|' + headers.getFirst(HttpHeaders.ACCEPT) + '|' + headers.getFirst(HttpHeaders.IF_NONE_MATCH);
+    }
+
+    private record CachedResponse(HttpStatus status, HttpHeaders headers, byte[] body) {
+
+        static CachedResponse of(HttpStatusCode status, HttpHeaders source, byte[] body) {
+            HttpHeaders headers = new HttpHeaders();
+            headers.putAll(source);
+            headers.remove(HttpHeaders.TRANSFER_ENCODING);
+            headers.remove(HttpHeaders.CONNECTION);
+            headers.setContentLength(body.length);
+            return new CachedResponse(HttpStatus.valueOf(status.value()), HttpHeaders.readOnlyHttpHeaders(headers), body);
+        }
+
+        Mono<Void> writeTo(ServerHttpResponse response) {
+            response.setStatusCode(status);
+            response.getHeaders().putAll(headers);
+            return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(body)));
+        }
+    }
+
+    private final class RouteState {
+        final ConcurrentMap<String, Mono<CachedResponse>> inFlight = new ConcurrentHashMap<>();
+        final Cache<String, CachedResponse> cache;
+        final Counter hits;
+        final Counter coalesced;
+        final Counter misses;
+        final Counter bypass;
+
+        RouteState(String routeId, long maxBytes, Duration ttl) {
+            if (ttl.isPositive()) {
+                this.cache = Caffeine.newBuilder()
+                        .maximumWeight(maxBytes)
+                        .weigher((String key, CachedResponse response) -> key.length() * 2 + response.body().length)
+                        .expireAfterWrite(ttl)
+                        .recordStats()
+                        .build();
+                CaffeineCacheMetrics.monitor(meterRegistry, cache, "gateway.response", Tags.of("route", routeId));
+            } else {
+                this.cache = null;
+            }
+            this.hits = requestCounter(routeId, "hit");
+            this.coalesced = requestCounter(routeId, "coalesced");
+            this.misses = requestCounter(routeId, "miss");
+            this.bypass = requestCounter(routeId, "bypass");
+        }
+
+        private Counter requestCounter(String routeId, String result) {
+            return Counter.builder("gateway.response.requests")
+                    .description("GET requests by response cache outcome")
+                    .tag("route", routeId)
+                    .tag("result", result)
+                    .register(meterRegistry);
+        }
+    }
+
+    public static class Config implements HasRouteId {
+        // 0 — только объединение одновременных запросов, без кэша
+        private Duration ttl = Duration.ZERO;
+        private long maxBytes = 16 * 1024 * 1024;
+        private int maxEntryBytes = 256 * 1024;
+        private String routeId;
+
+        // Геттеры и сеттеры
+        public Duration getTtl() { return ttl; }
+        public void setTtl(Duration ttl) { this.ttl = ttl; }
+        public long getMaxBytes() { return maxBytes; }
+        public void setMaxBytes(long maxBytes) { this.maxBytes = maxBytes; }
+        public int getMaxEntryBytes() { return maxEntryBytes; }
+        public void setMaxEntryBytes(int maxEntryBytes) { this.maxEntryBytes = maxEntryBytes; }
+
+        @Override
+        public String getRouteId() { return routeId; }
+
+        @Override
+        public void setRouteId(String routeId) { this.routeId = routeId; }
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.apigateway.config;
+
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.Set;
+
+/**
+ * Сбрасывает записи ResponseCache пользователя при любом его изменяющем
+ * запросе, через какой бы маршрут тот ни прошёл.
+ */
+@Component
+public class ResponseCacheInvalidationFilter implements GlobalFilter, Ordered {
+
+    private static final Set<HttpMethod> MUTATING = Set.of(HttpMethod.POST, HttpMethod.PUT, HttpMethod.PATCH, HttpMethod.DELETE);
+
+    private final ResponseCacheGatewayFilterFactory responseCache;
+
+    public ResponseCacheInvalidationFilter(ResponseCacheGatewayFilterFactory responseCache) {
+        this.responseCache = responseCache;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        JwtPrincipal principal = exchange.getAttribute(JwtVerifier.PRINCIPAL_ATTRIBUTE);
+        if (principal == null || !MUTATING.contains(exchange.getRequest().getMethod())) {
+            return chain.filter(exchange);
+        }
+        String user = ResponseCacheGatewayFilterFactory.userKey(principal);
+        // Поколение меняется и до, и после записи: GET, начатый во время
+        // изменения, не попадёт в кэш под новым поколением
+        responseCache.invalidate(user);
+        return chain.filter(exchange).doFinally(signal -> responseCache.invalidate(user));
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+}
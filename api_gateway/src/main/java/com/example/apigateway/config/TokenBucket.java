@@ -0,0 +1,38 @@
+package com.example.apigateway.config;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket без блокировок в форме GCRA: состояние — одно число,
+ * теоретическое время прихода следующего запроса (TAT). Запрос пропускается,
+ * если TAT опережает текущее время не больше чем на burstCapacity интервалов.
+ */
+public class TokenBucket {
+
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final AtomicLong theoreticalArrival = new AtomicLong(Long.MIN_VALUE);
+
+    public TokenBucket(double replenishRate, int burstCapacity) {
+        this.intervalNanos = Math.max(1, (long) (1_000_000_000L / replenishRate));
+        this.toleranceNanos = intervalNanos * Math.max(1, burstCapacity);
+    }
+
+    /**
+     * Возвращает 0, если токен получен, иначе время в наносекундах,
+     * через которое он появится.
+     */
+    public long tryAcquire(long nowNanos) {
+        while (true) {
+            long tat = theoreticalArrival.get();
+            long next = Math.max(tat, nowNanos) + intervalNanos;
+            long ahead = next - nowNanos;
+            if (ahead > toleranceNanos) {
+                return ahead - toleranceNanos;
+            }
+            if (theoreticalArrival.compareAndSet(tat, next)) {
+                return 0;
+            }
+        }
+    }
+}
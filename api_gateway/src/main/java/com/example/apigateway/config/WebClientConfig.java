@@ -1,23 +1,60 @@
 package com.example.apigateway.config;
 
-import org.springframework.cloud.client.loadbalancer.reactive.ReactorLoadBalancerExchangeFilterFunction;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.cloud.gateway.config.HttpClientCustomizer;
+import org.springframework.cloud.gateway.config.HttpClientFactory;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.config.HttpClientSslConfigurer;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.List;
 
 @Configuration
+@LoadBalancerClients(defaultConfiguration = PeakEwmaLoadBalancerConfiguration.class)
 public class WebClientConfig {
 
-    private final ReactorLoadBalancerExchangeFilterFunction lbFunction;
-
-    public WebClientConfig(ReactorLoadBalancerExchangeFilterFunction lbFunction) {
-        this.lbFunction = lbFunction;
+    // Пул маршрутов задаётся spring.cloud.gateway.httpclient.pool.*; стандартная
+    // фабрика не умеет LIFO и ограничение очереди ожидания, поэтому дополняем её
+    @Bean
+    public HttpClientFactory gatewayHttpClientFactory(HttpClientProperties properties,
+                                                      ServerProperties serverProperties,
+                                                      List<HttpClientCustomizer> customizers,
+                                                      HttpClientSslConfigurer sslConfigurer,
+                                                      @Value("${gateway.httpclient.pool.pending-acquire-max-count:1000}") int pendingAcquireMaxCount,
+                                                      @Value("${gateway.httpclient.pool.lifo:true}") boolean lifo) {
+        return new HttpClientFactory(properties, serverProperties, sslConfigurer, customizers) {
+            @Override
+            protected ConnectionProvider buildConnectionProvider(HttpClientProperties properties) {
+                HttpClientProperties.Pool pool = properties.getPool();
+                if (pool.getType() != HttpClientProperties.Pool.PoolType.FIXED) {
+                    return super.buildConnectionProvider(properties);
+                }
+                ConnectionProvider.Builder builder = ConnectionProvider.builder(pool.getName())
+                        .maxConnections(pool.getMaxConnections())
+                        .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                        .pendingAcquireTimeout(Duration.ofMillis(pool.getAcquireTimeout()))
+                        .metrics(pool.isMetrics());
+                if (pool.getMaxIdleTime() != null) {
+                    builder.maxIdleTime(pool.getMaxIdleTime());
+                }
+                if (pool.getMaxLifeTime() != null) {
+                    builder.maxLifeTime(pool.getMaxLifeTime());
+                }
+                builder.evictInBackground(pool.getEvictionInterval());
+                return (lifo ? builder.lifo() : builder.fifo()).build();
+            }
+        };
     }
 
+    // HTTP/2 без TLS к сервисам; серверам нужен server.http2.enabled=true
     @Bean
-    public WebClient webClient() {
-        return WebClient.builder()
-                .filter(lbFunction)
-                .build();
+    public HttpClientCustomizer h2cHttpClientCustomizer(@Value("${gateway.httpclient.h2c:false}") boolean h2c) {
+        return httpClient -> h2c ? httpClient.protocol(HttpProtocol.H2C, HttpProtocol.HTTP11) : httpClient;
     }
 }
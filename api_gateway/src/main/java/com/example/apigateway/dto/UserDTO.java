@@ -1,21 +0,0 @@
-package com.example.apigateway.dto;
-
-public class UserDTO {
-    private Long id;
-    private String username;
-    private String password;
-    private String email;
-    private String roles;
-
-    // Геттеры и сеттеры
-    public Long getId() { return id; }
-    public void setId(Long id) { this.id = id; }
-    public String getUsername() { return username; }
-    public void setUsername(String username) { this.username = username; }
-    public String getPassword() { return password; }
-    public void setPassword(String password) { this.password = password; }
-    public String getEmail() { return email; }
-    public void setEmail(String email) { this.email = email; }
-    public String getRoles() { return roles; }
-    public void setRoles(String roles) { this.roles = roles; }
-}
@@ -0,0 +1,117 @@
+package com.example.apigateway.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class AdmissionGatewayFilterFactoryTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AdmissionGatewayFilterFactory factory = new AdmissionGatewayFilterFactory(meterRegistry);
+    private final AtomicInteger forwarded = new AtomicInteger();
+    private final GatewayFilterChain chain = exchange -> {
+        forwarded.incrementAndGet();
+        return Mono.empty();
+    };
+
+    @Test
+    void rejectsClientBeyondBurstWithRetryAfter() {
+        // Один токен в 1000 с: за время теста корзина не пополняется
+        GatewayFilter filter = factory.apply(config("tasks", 0.001, 2, 0));
+
+        assertNull(run(filter, user(1L)).getResponse().getStatusCode());
+        assertNull(run(filter, user(1L)).getResponse().getStatusCode());
+        MockServerWebExchange rejected = run(filter, user(1L));
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejected.getResponse().getStatusCode());
+        assertEquals("1000", rejected.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals(2, forwarded.get());
+        assertEquals(1.0, meterRegistry.get("gateway.admission.rejected").tags("route", "tasks", "reason", "rate_limit").counter().count());
+    }
+
+    @Test
+    void bucketsArePerClient() {
+        GatewayFilter filter = factory.apply(config("tasks", 0.001, 1, 0));
+
+        run(filter, user(1L));
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, run(filter, user(1L)).getResponse().getStatusCode());
+        assertNull(run(filter, user(2L)).getResponse().getStatusCode());
+        // Без токена ключом служит адрес клиента
+        assertNull(run(filter, anonymous()).getResponse().getStatusCode());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, run(filter, anonymous()).getResponse().getStatusCode());
+    }
+
+    @Test
+    void rejectsBeyondMaxInFlightAndReleasesSlotOnCompletion() {
+        GatewayFilter filter = factory.apply(config("tasks", 0, 1, 1));
+        Sinks.Empty<Void> upstream = Sinks.empty();
+        GatewayFilterChain slowChain = exchange -> upstream.asMono();
+
+        filter.filter(user(1L), slowChain).subscribe();
+        MockServerWebExchange overloaded = user(2L);
+        filter.filter(overloaded, chain).block();
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, overloaded.getResponse().getStatusCode());
+
+        upstream.tryEmitEmpty();
+        assertNull(run(filter, user(2L)).getResponse().getStatusCode());
+        assertEquals(0.0, meterRegistry.get("gateway.admission.in.flight").tag("route", "tasks").gauge().value());
+    }
+
+    @Test
+    void eventStreamDoesNotHoldInFlightSlot() {
+        GatewayFilter filter = factory.apply(config("tasks", 0, 1, 1));
+        MockServerWebExchange subscription = MockServerWebExchange.from(MockServerHttpRequest.get("/api/tasks/events")
+                .accept(MediaType.TEXT_EVENT_STREAM));
+        filter.filter(subscription, exchange -> Sinks.empty().asMono().then()).subscribe();
+
+        assertNull(run(filter, user(1L)).getResponse().getStatusCode());
+    }
+
+    @Test
+    void stateSurvivesRouteRefresh() {
+        run(factory.apply(config("tasks", 0.001, 1, 0)), user(1L));
+
+        // После RefreshRoutesEvent фильтр создаётся заново для того же routeId
+        MockServerWebExchange afterRefresh = run(factory.apply(config("tasks", 0.001, 1, 0)), user(1L));
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, afterRefresh.getResponse().getStatusCode());
+    }
+
+    private MockServerWebExchange run(GatewayFilter filter, MockServerWebExchange exchange) {
+        filter.filter(exchange, chain).block();
+        return exchange;
+    }
+
+    private static AdmissionGatewayFilterFactory.Config config(String routeId, double rate, int burst, int maxInFlight) {
+        AdmissionGatewayFilterFactory.Config config = new AdmissionGatewayFilterFactory.Config();
+        config.setRouteId(routeId);
+        config.setReplenishRate(rate);
+        config.setBurstCapacity(burst);
+        config.setMaxInFlight(maxInFlight);
+        return config;
+    }
+
+    private static MockServerWebExchange user(Long userId) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/tasks"));
+        exchange.getAttributes().put(JwtVerifier.PRINCIPAL_ATTRIBUTE, new JwtPrincipal("user" + userId, userId, List.of()));
+        return exchange;
+    }
+
+    private static MockServerWebExchange anonymous() {
+        return MockServerWebExchange.from(MockServerHttpRequest.post("/api/auth/login"));
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.apigateway.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IdentityHeadersTest {
+
+    private static final String SECRET = "test-identity-secret";
+
+    private final IdentityHeaders identityHeaders = new IdentityHeaders(SECRET, Duration.ofSeconds(60), true);
+
+    @Test
+    void readsWhatWasWritten() {
+        HttpHeaders headers = new HttpHeaders();
+        identityHeaders.write(headers, new JwtPrincipal("Анна Smith", 42L, List.of("USER", "ADMIN")));
+
+        JwtPrincipal principal = identityHeaders.read(headers::getFirst);
+
+        assertEquals(new JwtPrincipal("Анна Smith", 42L, List.of("USER", "ADMIN")), principal);
+    }
+
+    @Test
+    void readsPrincipalWithoutUserIdOrRoles() {
+        HttpHeaders headers = new HttpHeaders();
+        identityHeaders.write(headers, new JwtPrincipal("legacy", null, List.of()));
+
+        assertEquals(new JwtPrincipal("legacy", null, List.of()), identityHeaders.read(headers::getFirst));
+    }
+
+    @Test
+    void writeReplacesForgedHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(IdentityHeaders.USER_ID, "1");
+        headers.set(IdentityHeaders.USER_ROLES, "ADMIN");
+
+        identityHeaders.write(headers, new JwtPrincipal("bob", 7L, List.of("USER")));
+
+        assertEquals(List.of("7"), headers.get(IdentityHeaders.USER_ID));
+        assertEquals(List.of("USER"), headers.get(IdentityHeaders.USER_ROLES));
+    }
+
+    @Test
+    void rejectsTamperedFields() {
+        HttpHeaders headers = signed();
+        headers.set(IdentityHeaders.USER_ID, "1");
+        assertNull(identityHeaders.read(headers::getFirst));
+
+        headers = signed();
+        headers.set(IdentityHeaders.USER_ROLES, "USER,ADMIN");
+        assertNull(identityHeaders.read(headers::getFirst));
+
+        headers = signed();
+        headers.set(IdentityHeaders.USER_NAME, "mallory");
+        assertNull(identityHeaders.read(headers::getFirst));
+    }
+
+    @Test
+    void rejectsTamperedOrMalformedSignature() {
+        HttpHeaders headers = signed();
+        String signature = headers.getFirst(IdentityHeaders.SIGNATURE);
+        char last = signature.charAt(signature.length() - 1);
+        headers.set(IdentityHeaders.SIGNATURE, signature.substring(0, signature.length() - 1) + (last == 'A' ? 'B' : 'A'));
+        assertNull(identityHeaders.read(headers::getFirst));
+
+        headers.set(IdentityHeaders.SIGNATURE, "not-a-signature");
+        assertNull(identityHeaders.read(headers::getFirst));
+
+        headers.set(IdentityHeaders.SIGNATURE, "abc." + signature.substring(signature.indexOf('.') + 1));
+        assertNull(identityHeaders.read(headers::getFirst));
+    }
+
+    @Test
+    void rejectsSignatureMadeWithAnotherSecret() {
+        HttpHeaders headers = new HttpHeaders();
+        new IdentityHeaders("other-secret", Duration.ofSeconds(60), true)
+                .write(headers, new JwtPrincipal("bob", 7L, List.of("USER")));
+
+        assertNull(identityHeaders.read(headers::getFirst));
+    }
+
+    @Test
+    void rejectsExpiredSignature() throws InterruptedException {
+        IdentityHeaders shortLived = new IdentityHeaders(SECRET, Duration.ofMillis(1), true);
+        HttpHeaders headers = new HttpHeaders();
+        shortLived.write(headers, new JwtPrincipal("bob", 7L, List.of("USER")));
+
+        Thread.sleep(20);
+
+        assertNull(shortLived.read(headers::getFirst));
+    }
+
+    @Test
+    void returnsNullWithoutHeaders() {
+        assertNull(identityHeaders.read(new HttpHeaders()::getFirst));
+    }
+
+    @Test
+    void stripRemovesAllIdentityHeaders() {
+        HttpHeaders headers = signed();
+        headers.set(HttpHeaders.AUTHORIZATION, "Bearer token");
+
+        IdentityHeaders.strip(headers);
+
+        assertTrue(IdentityHeaders.ALL.stream().noneMatch(headers::containsKey));
+        assertEquals("Bearer token", headers.getFirst(HttpHeaders.AUTHORIZATION));
+    }
+
+    private HttpHeaders signed() {
+        HttpHeaders headers = new HttpHeaders();
+        identityHeaders.write(headers, new JwtPrincipal("bob", 7L, List.of("USER")));
+        return headers;
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.apigateway.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class IdentityWebFilterTest {
+
+    private static final JwtPrincipal BOB = new JwtPrincipal("bob", 7L, List.of("ROLE_USER"));
+
+    private final JwtVerifier jwtVerifier = mock(JwtVerifier.class);
+    private final IdentityHeaders identityHeaders = new IdentityHeaders("test-identity-secret", Duration.ofSeconds(60), true);
+    private final IdentityWebFilter filter = new IdentityWebFilter(jwtVerifier, identityHeaders);
+
+    @Test
+    void replacesForgedHeadersWithSignedIdentityOfTokenOwner() {
+        when(jwtVerifier.verify("good")).thenReturn(BOB);
+        MockServerHttpRequest request = MockServerHttpRequest.get("/api/tasks")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer good")
+                .header(IdentityHeaders.USER_ID, "1")
+                .header(IdentityHeaders.USER_ROLES, "ROLE_ADMIN")
+                .build();
+
+        ServerWebExchange forwarded = forward(request);
+
+        assertEquals(BOB, identityHeaders.read(forwarded.getRequest().getHeaders()::getFirst));
+        assertEquals(BOB, forwarded.getAttribute(JwtVerifier.PRINCIPAL_ATTRIBUTE));
+    }
+
+    @Test
+    void stripsIdentityHeadersWithoutToken() {
+        HttpHeaders signed = new HttpHeaders();
+        identityHeaders.write(signed, BOB);
+        MockServerHttpRequest request = MockServerHttpRequest.get("/api/tasks").headers(signed).build();
+
+        ServerWebExchange forwarded = forward(request);
+
+        assertTrue(IdentityHeaders.ALL.stream().noneMatch(forwarded.getRequest().getHeaders()::containsKey));
+        assertNull(forwarded.getAttribute(JwtVerifier.PRINCIPAL_ATTRIBUTE));
+    }
+
+    @Test
+    void stripsIdentityHeadersWhenTokenIsInvalid() {
+        when(jwtVerifier.verify("bad")).thenThrow(new IllegalArgumentException("bad token"));
+        MockServerHttpRequest request = MockServerHttpRequest.get("/api/tasks")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer bad")
+                .header(IdentityHeaders.USER_NAME, "bob")
+                .build();
+
+        ServerWebExchange forwarded = forward(request);
+
+        assertTrue(IdentityHeaders.ALL.stream().noneMatch(forwarded.getRequest().getHeaders()::containsKey));
+    }
+
+    private ServerWebExchange forward(MockServerHttpRequest request) {
+        AtomicReference<ServerWebExchange> forwarded = new AtomicReference<>();
+        filter.filter(MockServerWebExchange.from(request), exchange -> {
+            forwarded.set(exchange);
+            return Mono.empty();
+        }).block();
+        return forwarded.get();
+    }
+}
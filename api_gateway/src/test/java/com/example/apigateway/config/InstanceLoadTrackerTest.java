@@ -0,0 +1,131 @@
+package com.example.apigateway.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InstanceLoadTrackerTest {
+
+    private static final Duration DECAY = Duration.ofSeconds(10);
+    private static final Duration FAILURE_PENALTY = Duration.ofSeconds(1);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final InstanceLoadTracker tracker =
+            new InstanceLoadTracker(meterRegistry, DECAY, FAILURE_PENALTY, Duration.ofMinutes(10));
+    private final ServiceInstance first = instance("first", "10.0.0.1");
+    private final ServiceInstance second = instance("second", "10.0.0.2");
+
+    @Test
+    void unmeasuredInstancesScoreZero() {
+        assertEquals(0, tracker.score(first, System.nanoTime()));
+    }
+
+    @Test
+    void outstandingRequestsRaiseScore() {
+        start(first);
+
+        long now = System.nanoTime();
+        assertTrue(tracker.score(first, now) > tracker.score(second, now));
+    }
+
+    @Test
+    void completionReleasesOutstandingRequest() {
+        Request<RequestDataContext> request = start(first);
+        complete(request, first, CompletionContext.Status.SUCCESS, HttpStatus.OK, MediaType.APPLICATION_JSON);
+
+        assertEquals(0.0, outstanding(first));
+    }
+
+    @Test
+    void failureIsScoredAtLeastFailurePenalty() {
+        Request<RequestDataContext> request = start(first);
+        complete(request, first, CompletionContext.Status.SUCCESS, HttpStatus.SERVICE_UNAVAILABLE, MediaType.APPLICATION_JSON);
+
+        long now = System.nanoTime();
+        assertTrue(tracker.score(first, now) >= FAILURE_PENALTY.toNanos() * 0.99);
+        assertTrue(tracker.score(first, now) > tracker.score(second, now));
+    }
+
+    @Test
+    void penaltyDecaysWithoutNewMeasurements() {
+        Request<RequestDataContext> request = start(first);
+        complete(request, first, CompletionContext.Status.FAILED, null, null);
+
+        long now = System.nanoTime();
+        double later = tracker.score(first, now + DECAY.toNanos());
+        assertEquals(tracker.score(first, now) / Math.E, later, tracker.score(first, now) * 0.01);
+        assertTrue(tracker.score(first, now + 10 * DECAY.toNanos()) < TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    @Test
+    void streamDurationIsNotLatency() {
+        Request<RequestDataContext> request = start(first);
+        complete(request, first, CompletionContext.Status.SUCCESS, HttpStatus.OK, MediaType.TEXT_EVENT_STREAM);
+
+        assertEquals(0, tracker.score(first, System.nanoTime()));
+    }
+
+    @Test
+    void retainRemovesGaugesOfEvictedInstances() {
+        ServiceInstance other = new DefaultServiceInstance("other", "other-service", "10.0.0.3", 8080, false);
+        tracker.score(first, 0);
+        tracker.score(second, 0);
+        tracker.score(other, 0);
+
+        tracker.retain("task-service", List.of(first));
+
+        assertNotNull(meterRegistry.find("loadbalancer.instance.score").tag("instance", "10.0.0.1:8080").gauge());
+        assertNull(meterRegistry.find("loadbalancer.instance.score").tag("instance", "10.0.0.2:8080").gauge());
+        assertNull(meterRegistry.find("loadbalancer.instance.outstanding").tag("instance", "10.0.0.2:8080").gauge());
+        assertNotNull(meterRegistry.find("loadbalancer.instance.score").tag("service", "other-service").gauge());
+    }
+
+    private Request<RequestDataContext> start(ServiceInstance instance) {
+        Request<RequestDataContext> request = new DefaultRequest<>(new RequestDataContext());
+        tracker.onStartRequest(request, new DefaultResponse(instance));
+        return request;
+    }
+
+    private void complete(Request<RequestDataContext> request, ServiceInstance instance,
+                          CompletionContext.Status status, HttpStatus httpStatus, MediaType contentType) {
+        Response<ServiceInstance> lbResponse = new DefaultResponse(instance);
+        ResponseData response = null;
+        if (httpStatus != null) {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(contentType);
+            response = new ResponseData(httpStatus, headers, null, null);
+        }
+        tracker.onComplete(new CompletionContext<>(status, request, lbResponse, response));
+    }
+
+    private double outstanding(ServiceInstance instance) {
+        return meterRegistry.get("loadbalancer.instance.outstanding")
+                .tag("instance", instance.getHost() + ":" + instance.getPort())
+                .gauge()
+                .value();
+    }
+
+    private static ServiceInstance instance(String id, String host) {
+        return new DefaultServiceInstance(id, "task-service", host, 8080, false);
+    }
+}
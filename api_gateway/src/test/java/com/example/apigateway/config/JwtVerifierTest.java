@@ -0,0 +1,90 @@
+package com.example.apigateway.config;
+
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JwtVerifierTest {
+
+    private static final String SECRET = "test-secret-key-that-is-at-least-256-bits-long";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final JwtVerifier verifier = new JwtVerifier(SECRET, 100, Duration.ofMinutes(10), meterRegistry);
+
+    @Test
+    void verifiesSignedToken() {
+        String token = Jwts.builder()
+                .subject("bob")
+                .claim(JwtVerifier.USER_ID_CLAIM, 7)
+                .claim(JwtVerifier.ROLES_CLAIM, List.of("USER"))
+                .expiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+
+        assertEquals(new JwtPrincipal("bob", 7L, List.of("USER")), verifier.verify(token));
+        // Повторная проверка идёт из кэша
+        assertEquals(new JwtPrincipal("bob", 7L, List.of("USER")), verifier.verify(token));
+        assertEquals(1.0, meterRegistry.get("cache.gets").tags("cache", "jwt.claims", "result", "hit").functionCounter().count());
+    }
+
+    @Test
+    void acceptsLegacyTokenWithoutUserIdAndRoles() {
+        String token = Jwts.builder()
+                .subject("legacy")
+                .expiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+
+        assertEquals(new JwtPrincipal("legacy", null, List.of()), verifier.verify(token));
+    }
+
+    @Test
+    void rejectsTokenSignedWithAnotherKey() {
+        String token = Jwts.builder()
+                .subject("bob")
+                .expiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor("another-secret-key-that-is-at-least-256-bits".getBytes(StandardCharsets.UTF_8)))
+                .compact();
+
+        assertThrows(JwtException.class, () -> verifier.verify(token));
+    }
+
+    @Test
+    void rejectsTamperedPayload() {
+        String token = Jwts.builder()
+                .subject("bob")
+                .expiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+        String forged = Jwts.builder()
+                .subject("admin")
+                .expiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+        String[] parts = token.split("\\.");
+        String tampered = parts[0] + "." + forged.split("\\.")[1] + "." + parts[2];
+
+        assertThrows(JwtException.class, () -> verifier.verify(tampered));
+    }
+
+    @Test
+    void rejectsExpiredToken() {
+        String token = Jwts.builder()
+                .subject("bob")
+                .expiration(new Date(System.currentTimeMillis() - 60_000))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+
+        assertThrows(JwtException.class, () -> verifier.verify(token));
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.apigateway.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PeakEwmaLoadBalancerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final InstanceLoadTracker tracker =
+            new InstanceLoadTracker(meterRegistry, Duration.ofSeconds(10), Duration.ofSeconds(1), Duration.ofMinutes(10));
+    private final ServiceInstance busy = instance("busy", "10.0.0.1");
+    private final ServiceInstance idle = instance("idle", "10.0.0.2");
+
+    @Test
+    void prefersInstanceWithLowerScore() {
+        tracker.onStartRequest(new DefaultRequest<>(new RequestDataContext()), new DefaultResponse(busy));
+        PeakEwmaLoadBalancer balancer = balancer(List.of(busy, idle));
+
+        // Из двух экземпляров сравниваются оба, поэтому выбор детерминирован
+        for (int i = 0; i < 20; i++) {
+            assertEquals(idle, choose(balancer).getServer());
+        }
+    }
+
+    @Test
+    void emptyListHasNoServer() {
+        assertFalse(choose(balancer(List.of())).hasServer());
+    }
+
+    @Test
+    void forgetsInstancesDroppedFromDiscovery() {
+        tracker.score(busy, 0);
+
+        choose(balancer(List.of(idle)));
+
+        assertNull(meterRegistry.find("loadbalancer.instance.score").tag("instance", "10.0.0.1:8080").gauge());
+    }
+
+    private Response<ServiceInstance> choose(PeakEwmaLoadBalancer balancer) {
+        return balancer.choose(new DefaultRequest<>(new RequestDataContext())).block();
+    }
+
+    @SuppressWarnings("unchecked")
+    private PeakEwmaLoadBalancer balancer(List<ServiceInstance> instances) {
+        ServiceInstanceListSupplier supplier = new ServiceInstanceListSupplier() {
+            @Override
+            public String getServiceId() {
+                return "task-service";
+            }
+
+            @Override
+            public Flux<List<ServiceInstance>> get() {
+                return Flux.just(instances);
+            }
+        };
+        ObjectProvider<ServiceInstanceListSupplier> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable(any())).thenReturn(supplier);
+        return new PeakEwmaLoadBalancer(provider, "task-service", tracker);
+    }
+
+    private static ServiceInstance instance(String id, String host) {
+        return new DefaultServiceInstance(id, "task-service", host, 8080, false);
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.apigateway.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ResponseCacheGatewayFilterFactoryTest {
+
+    private final ResponseCacheGatewayFilterFactory factory = new ResponseCacheGatewayFilterFactory(new SimpleMeterRegistry());
+    private final ResponseCacheInvalidationFilter invalidation = new ResponseCacheInvalidationFilter(factory);
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+    // Пока не открыт, сервис «отвечает» бесконечно долго
+    private Sinks.Empty<Void> gate = Sinks.empty();
+    private HttpStatus upstreamStatus = HttpStatus.OK;
+
+    private final GatewayFilterChain upstream = exchange -> {
+        int call = upstreamCalls.incrementAndGet();
+        return gate.asMono().then(Mono.defer(() -> {
+            ServerHttpResponse response = exchange.getResponse();
+            response.setStatusCode(upstreamStatus);
+            response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+            return response.writeWith(Mono.fromSupplier(() ->
+                    response.bufferFactory().wrap(("body" + call).getBytes(StandardCharsets.UTF_8))));
+        }));
+    };
+
+    @Test
+    void identicalConcurrentGetsShareOneUpstreamCall() {
+        GatewayFilter filter = factory.apply(config(Duration.ZERO));
+        MockServerWebExchange leader = get(1L, "/api/tasks?limit=50");
+        MockServerWebExchange follower = get(1L, "/api/tasks?limit=50");
+
+        filter.filter(leader, upstream).subscribe();
+        filter.filter(follower, upstream).subscribe();
+        gate.tryEmitEmpty();
+
+        assertEquals(1, upstreamCalls.get());
+        assertEquals("body1", body(leader));
+        assertEquals("body1", body(follower));
+        assertEquals(HttpStatus.OK, follower.getResponse().getStatusCode());
+    }
+
+    @Test
+    void differentUsersOrQueriesAreNotCoalesced() {
+        GatewayFilter filter = factory.apply(config(Duration.ZERO));
+
+        filter.filter(get(1L, "/api/tasks"), upstream).subscribe();
+        filter.filter(get(2L, "/api/tasks"), upstream).subscribe();
+        filter.filter(get(1L, "/api/tasks?completed=true"), upstream).subscribe();
+        gate.tryEmitEmpty();
+
+        assertEquals(3, upstreamCalls.get());
+    }
+
+    @Test
+    void followerFallsBackToUpstreamWhenLeaderResponseIsNotShareable() {
+        upstreamStatus = HttpStatus.NOT_FOUND;
+        GatewayFilter filter = factory.apply(config(Duration.ZERO));
+        MockServerWebExchange follower = get(1L, "/api/tasks/9");
+
+        filter.filter(get(1L, "/api/tasks/9"), upstream).subscribe();
+        filter.filter(follower, upstream).subscribe();
+        gate.tryEmitEmpty();
+
+        assertEquals(2, upstreamCalls.get());
+        assertEquals("body2", body(follower));
+    }
+
+    @Test
+    void microCacheServesRepeatedGetUntilUserWrites() {
+        gate.tryEmitEmpty();
+        GatewayFilter filter = factory.apply(config(Duration.ofMinutes(1)));
+
+        assertEquals("body1", body(run(filter, get(1L, "/api/tasks"))));
+        assertEquals("body1", body(run(filter, get(1L, "/api/tasks"))));
+        assertEquals(1, upstreamCalls.get());
+
+        invalidation.filter(exchange(MockServerHttpRequest.post("/api/tasks"), 1L), exchange -> Mono.empty()).block();
+
+        assertEquals("body2", body(run(filter, get(1L, "/api/tasks"))));
+    }
+
+    @Test
+    void writeByOneUserKeepsOtherUsersEntries() {
+        gate.tryEmitEmpty();
+        GatewayFilter filter = factory.apply(config(Duration.ofMinutes(1)));
+        run(filter, get(1L, "/api/tasks"));
+        run(filter, get(2L, "/api/tasks"));
+
+        invalidation.filter(exchange(MockServerHttpRequest.delete("/api/tasks/1"), 1L), exchange -> Mono.empty()).block();
+        run(filter, get(2L, "/api/tasks"));
+
+        assertEquals(2, upstreamCalls.get());
+    }
+
+    @Test
+    void responseOfGetOverlappingWriteIsNotCached() {
+        GatewayFilter filter = factory.apply(config(Duration.ofMinutes(1)));
+        filter.filter(get(1L, "/api/tasks"), upstream).subscribe();
+
+        // Запись завершается, пока GET ещё ждёт ответа: его ответ может быть старым
+        invalidation.filter(exchange(MockServerHttpRequest.patch("/api/tasks/1"), 1L), exchange -> Mono.empty()).block();
+        gate.tryEmitEmpty();
+        run(filter, get(1L, "/api/tasks"));
+
+        assertEquals(2, upstreamCalls.get());
+    }
+
+    @Test
+    void nonGetAndStreamingRequestsPassThrough() {
+        gate.tryEmitEmpty();
+        GatewayFilter filter = factory.apply(config(Duration.ofMinutes(1)));
+
+        run(filter, exchange(MockServerHttpRequest.post("/api/tasks"), 1L));
+        run(filter, exchange(MockServerHttpRequest.post("/api/tasks"), 1L));
+        run(filter, exchange(MockServerHttpRequest.get("/api/tasks/events").accept(MediaType.TEXT_EVENT_STREAM), 1L));
+        run(filter, exchange(MockServerHttpRequest.get("/api/tasks/events").accept(MediaType.TEXT_EVENT_STREAM), 1L));
+
+        assertEquals(4, upstreamCalls.get());
+    }
+
+    private MockServerWebExchange run(GatewayFilter filter, MockServerWebExchange exchange) {
+        filter.filter(exchange, upstream).block();
+        return exchange;
+    }
+
+    private static String body(MockServerWebExchange exchange) {
+        return exchange.getResponse().getBodyAsString().block();
+    }
+
+    private static ResponseCacheGatewayFilterFactory.Config config(Duration ttl) {
+        ResponseCacheGatewayFilterFactory.Config config = new ResponseCacheGatewayFilterFactory.Config();
+        config.setRouteId("tasks");
+        config.setTtl(ttl);
+        return config;
+    }
+
+    private static MockServerWebExchange get(Long userId, String uri) {
+        return exchange(MockServerHttpRequest.get(uri), userId);
+    }
+
+    private static MockServerWebExchange exchange(MockServerHttpRequest.BaseBuilder<?> request, Long userId) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        exchange.getAttributes().put(JwtVerifier.PRINCIPAL_ATTRIBUTE, new JwtPrincipal("user" + userId, userId, List.of()));
+        return exchange;
+    }
+}
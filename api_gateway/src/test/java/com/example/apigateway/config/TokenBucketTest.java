@@ -0,0 +1,99 @@
+package com.example.apigateway.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void allowsBurstThenRejects() {
+        TokenBucket bucket = new TokenBucket(10, 5);
+        long now = 1_000 * SECOND;
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, bucket.tryAcquire(now), "request " + i);
+        }
+        assertTrue(bucket.tryAcquire(now) > 0);
+    }
+
+    @Test
+    void reportsWaitUntilNextToken() {
+        TokenBucket bucket = new TokenBucket(10, 1);
+        long now = 1_000 * SECOND;
+
+        assertEquals(0, bucket.tryAcquire(now));
+        assertEquals(SECOND / 10, bucket.tryAcquire(now));
+        assertEquals(SECOND / 20, bucket.tryAcquire(now + SECOND / 20));
+        assertEquals(0, bucket.tryAcquire(now + SECOND / 10));
+    }
+
+    @Test
+    void refillsAtReplenishRate() {
+        TokenBucket bucket = new TokenBucket(10, 5);
+        long now = 1_000 * SECOND;
+        for (int i = 0; i < 5; i++) {
+            bucket.tryAcquire(now);
+        }
+
+        // За 300 мс восполняются три токена
+        now += 3 * SECOND / 10;
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, bucket.tryAcquire(now), "request " + i);
+        }
+        assertTrue(bucket.tryAcquire(now) > 0);
+    }
+
+    @Test
+    void idleTimeDoesNotGrowBurstBeyondCapacity() {
+        TokenBucket bucket = new TokenBucket(10, 2);
+        long now = 1_000 * SECOND;
+        bucket.tryAcquire(now);
+
+        now += 3_600 * SECOND;
+        assertEquals(0, bucket.tryAcquire(now));
+        assertEquals(0, bucket.tryAcquire(now));
+        assertTrue(bucket.tryAcquire(now) > 0);
+    }
+
+    @Test
+    void rejectedRequestsDoNotConsumeTokens() {
+        TokenBucket bucket = new TokenBucket(10, 1);
+        long now = 1_000 * SECOND;
+        bucket.tryAcquire(now);
+        for (int i = 0; i < 100; i++) {
+            bucket.tryAcquire(now);
+        }
+
+        assertEquals(0, bucket.tryAcquire(now + SECOND / 10));
+    }
+
+    @Test
+    void grantsExactlyCapacityUnderContention() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(1, 100);
+        long now = 1_000 * SECOND;
+        AtomicInteger granted = new AtomicInteger();
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 1_000; i++) {
+                    if (bucket.tryAcquire(now) == 0) {
+                        granted.incrementAndGet();
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(100, granted.get());
+    }
+}
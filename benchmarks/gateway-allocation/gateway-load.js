@@ -0,0 +1,52 @@
+import http from 'k6/http';
+import { check, sleep } from 'k6';
+
+// Фиксированное число итераций, чтобы сравнивать аллокации на запрос
+const BASE_URL = __ENV.BASE_URL || 'http://api-gateway:8080';
+const VUS = Number(__ENV.VUS || 20);
+// Admission ограничивает пользователя 100 rps (burst 200). У каждого VU свой
+// пользователь, а итерация из двух запросов длится не меньше MIN_ITERATION_MS
+// (50 мс — до 40 rps на пользователя), поэтому 429 не подменяют проксирование
+const MIN_ITERATION_MS = Number(__ENV.MIN_ITERATION_MS || 50);
+
+export const options = {
+  scenarios: {
+    proxy: {
+      executor: 'shared-iterations',
+      vus: VUS,
+      iterations: Number(__ENV.ITERATIONS || 5000),
+    },
+  },
+};
+
+export function setup() {
+  const params = { headers: { 'Content-Type': 'application/json' } };
+  const run = Math.random().toString(36).substring(7);
+  const tokens = [];
+  for (let i = 0; i < VUS; i++) {
+    const username = `alloc_${run}_${i}`;
+    const credentials = JSON.stringify({ username: username, password: 'testpassword', email: `${username}@example.com` });
+    http.post(`${BASE_URL}/api/auth/register`, credentials, params);
+    const login = http.post(`${BASE_URL}/api/auth/login`, credentials, params);
+    tokens.push(login.json('token'));
+  }
+  return { tokens: tokens };
+}
+
+export default function (data) {
+  const startedAt = Date.now();
+  const params = {
+    headers: { 'Content-Type': 'application/json', Authorization: `Bearer ${data.tokens[(__VU - 1) % data.tokens.length]}` },
+  };
+  const created = http.post(`${BASE_URL}/api/tasks`,
+    JSON.stringify({ title: 'allocation', description: 'gateway proxy benchmark', completed: false }), params);
+  check(created, { 'task created': (r) => r.status === 200 || r.status === 202 });
+
+  const listed = http.get(`${BASE_URL}/api/tasks?limit=50`, params);
+  check(listed, { 'tasks listed': (r) => r.status === 200 });
+
+  const remaining = MIN_ITERATION_MS - (Date.now() - startedAt);
+  if (remaining > 0) {
+    sleep(remaining / 1000);
+  }
+}
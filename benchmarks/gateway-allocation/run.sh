@@ -0,0 +1,46 @@
+#!/usr/bin/env bash
+# Аллокации gateway на один проксируемый запрос.
+# Снимает jvm_gc_memory_allocated_bytes_total с /actuator/prometheus до и
+# после прогона gateway-load.js и делит разницу на число запросов k6.
+# Результат дописывается в results/<label>.txt. Нагрузка держится ниже
+# лимитов Admission (см. gateway-load.js), чтобы сравнение с коммитами до
+# появления лимитера оставалось честным.
+#
+# Сравнение до/после: соберите стек на нужном коммите
+# (docker compose up -d --build) и запустите с разными метками:
+#   benchmarks/gateway-allocation/run.sh before
+#   benchmarks/gateway-allocation/run.sh after
+set -euo pipefail
+
+LABEL="${1:-current}"
+GATEWAY_URL="${GATEWAY_URL:-http://localhost:8080}"
+BENCH_DIR="$(cd "$(dirname "$0")" && pwd)"
+RESULTS_DIR="$BENCH_DIR/results"
+mkdir -p "$RESULTS_DIR"
+
+allocated_bytes() {
+  curl -sf "$GATEWAY_URL/actuator/prometheus" \
+    | awk '/^jvm_gc_memory_allocated_bytes_total/ { sum += $2 } END { printf "%.0f\n", sum }'
+}
+
+# Прогрев: JIT и пулы соединений не должны попадать в замер
+docker run --rm -i --network microservices-net -v "$BENCH_DIR:/scripts:ro" \
+  -e ITERATIONS=1000 grafana/k6 run --quiet /scripts/gateway-load.js > /dev/null || true
+
+before=$(allocated_bytes)
+docker run --rm -i --network microservices-net -v "$BENCH_DIR:/scripts:ro" -v "$RESULTS_DIR:/results" \
+  grafana/k6 run --quiet --summary-export "/results/$LABEL.json" /scripts/gateway-load.js || true
+after=$(allocated_bytes)
+
+requests=$(python3 -c "import json,sys; print(int(json.load(open(sys.argv[1]))['metrics']['http_reqs']['count']))" \
+  "$RESULTS_DIR/$LABEL.json")
+# Отказы (например, 429 от Admission) дешевле проксирования и занижают результат
+failed_checks=$(python3 -c "import json,sys; print(int(json.load(open(sys.argv[1]))['metrics']['checks']['fails']))" \
+  "$RESULTS_DIR/$LABEL.json")
+if [ "$failed_checks" -gt 0 ]; then
+  echo "warning: $failed_checks failed checks, the result is not comparable" >&2
+fi
+per_request=$(( (after - before) / requests ))
+
+echo "$LABEL: $requests requests, $((after - before)) bytes allocated, $per_request bytes/request" \
+  | tee -a "$RESULTS_DIR/$LABEL.txt"
@@ -0,0 +1,40 @@
+import json
+import os
+import sys
+
+# Печатает таблицу по сводкам k6 (--summary-export) из каталога results
+
+
+def load(path):
+    with open(path) as f:
+        return json.load(f)['metrics']
+
+
+def row(mode, metrics):
+    duration = metrics['http_req_duration']
+    failed = metrics['http_req_failed']
+    return [
+        mode,
+        f"{metrics['http_reqs']['rate']:.1f}",
+        f"{duration['med']:.1f}",
+        f"{duration['p(95)']:.1f}",
+        f"{duration['max']:.1f}",
+        f"{failed.get('value', failed.get('rate', 0)) * 100:.2f}%",
+    ]
+
+
+def main():
+    results_dir = sys.argv[1] if len(sys.argv) > 1 else 'results'
+    header = ['mode', 'req/s', 'p50 ms', 'p95 ms', 'max ms', 'failed']
+    rows = []
+    for mode in ('platform', 'virtual'):
+        path = os.path.join(results_dir, f'{mode}.json')
+        if os.path.exists(path):
+            rows.append(row(mode, load(path)))
+    widths = [max(len(r[i]) for r in [header] + rows) for i in range(len(header))]
+    for r in [header] + rows:
+        print('  '.join(value.rjust(width) for value, width in zip(r, widths)))
+
+
+if __name__ == '__main__':
+    main()
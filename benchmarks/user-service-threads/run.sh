@@ -0,0 +1,51 @@
+#!/usr/bin/env bash
+# Сравнение user-service на платформенных и виртуальных потоках.
+# Для каждого режима пересоздаёт user-service, прогоняет load-test.js
+# (сценарии 5, 20 и 50 VU) и сохраняет сводку k6 в results/<mode>.json.
+#
+# Использование: benchmarks/user-service-threads/run.sh [platform|virtual ...]
+set -euo pipefail
+
+ROOT_DIR="$(cd "$(dirname "$0")/../.." && pwd)"
+BENCH_DIR="$ROOT_DIR/benchmarks/user-service-threads"
+RESULTS_DIR="$BENCH_DIR/results"
+if [ $# -gt 0 ]; then
+  MODES=("$@")
+else
+  MODES=(platform virtual)
+fi
+
+mkdir -p "$RESULTS_DIR"
+cd "$ROOT_DIR"
+
+wait_healthy() {
+  local container
+  container="$(docker compose ps -q user-service)"
+  for _ in $(seq 1 60); do
+    if [ "$(docker inspect -f '{{.State.Health.Status}}' "$container")" = "healthy" ]; then
+      return 0
+    fi
+    sleep 2
+  done
+  echo "user-service did not become healthy" >&2
+  return 1
+}
+
+for mode in "${MODES[@]}"; do
+  case "$mode" in
+    platform) virtual=false ;;
+    virtual) virtual=true ;;
+    *) echo "unknown mode: $mode" >&2; exit 1 ;;
+  esac
+
+  echo "== $mode threads =="
+  USER_SERVICE_VIRTUAL_THREADS=$virtual docker compose up -d --build --force-recreate user-service
+  wait_healthy
+
+  docker run --rm -i --network microservices-net \
+    -v "$ROOT_DIR/load-test.js:/scripts/load-test.js:ro" \
+    -v "$RESULTS_DIR:/results" \
+    grafana/k6 run --quiet --summary-export "/results/$mode.json" /scripts/load-test.js || true
+done
+
+python3 "$BENCH_DIR/compare.py" "$RESULTS_DIR"
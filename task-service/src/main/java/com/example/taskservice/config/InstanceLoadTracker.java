@@ -0,0 +1,192 @@
+package com.example.taskservice.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Peak-EWMA задержки и число запросов в работе по каждому экземпляру сервиса.
+ * Заполняется по итогам lb://-вызовов и используется PeakEwmaLoadBalancer.
+ */
+@Component
+public class InstanceLoadTracker implements LoadBalancerLifecycle<RequestDataContext, ResponseData, ServiceInstance> {
+
+    // Экземпляр без замеров, но уже с запросами в работе, выбирается последним
+    private static final double UNMEASURED_PENALTY = TimeUnit.SECONDS.toNanos(1000);
+
+    private final MeterRegistry meterRegistry;
+    private final double decayNanos;
+    private final long failurePenaltyNanos;
+    private final ConcurrentMap<String, InstanceStats> instances = new ConcurrentHashMap<>();
+    // Фильтры балансировщика не сообщают об отменённых запросах: слабые ключи
+    // и TTL возвращают такие запросы из счётчика outstanding
+    private final Cache<Request<?>, InFlight> inFlight;
+
+    public InstanceLoadTracker(MeterRegistry meterRegistry,
+                               @Value("${loadbalancer.peak-ewma.decay-time:10s}") Duration decayTime,
+                               @Value("${loadbalancer.peak-ewma.failure-penalty:1s}") Duration failurePenalty,
+                               @Value("${loadbalancer.peak-ewma.stale-after:10m}") Duration staleAfter) {
+        this.meterRegistry = meterRegistry;
+        this.decayNanos = decayTime.toNanos();
+        this.failurePenaltyNanos = failurePenalty.toNanos();
+        this.inFlight = Caffeine.newBuilder()
+                .weakKeys()
+                .expireAfterWrite(staleAfter)
+                .executor(Runnable::run)
+                .<Request<?>, InFlight>removalListener((request, call, cause) -> {
+                    if (call != null) {
+                        call.stats().outstanding.decrementAndGet();
+                    }
+                })
+                .build();
+    }
+
+    // Сигнатура LoadBalancerLifecycle объявлена с raw Class; Class<?> её не переопределяет
+    @Override
+    @SuppressWarnings("rawtypes")
+    public boolean supports(Class requestContextClass, Class responseClass, Class serverTypeClass) {
+        return RequestDataContext.class.isAssignableFrom(requestContextClass)
+                && ResponseData.class.isAssignableFrom(responseClass)
+                && ServiceInstance.class.isAssignableFrom(serverTypeClass);
+    }
+
+    @Override
+    public void onStart(Request<RequestDataContext> request) {
+    }
+
+    @Override
+    public void onStartRequest(Request<RequestDataContext> request, Response<ServiceInstance> lbResponse) {
+        if (!lbResponse.hasServer()) {
+            return;
+        }
+        InstanceStats stats = stats(lbResponse.getServer());
+        stats.outstanding.incrementAndGet();
+        inFlight.put(request, new InFlight(stats, System.nanoTime()));
+    }
+
+    @Override
+    public void onComplete(CompletionContext<ResponseData, ServiceInstance, RequestDataContext> completion) {
+        InFlight call = inFlight.asMap().remove(completion.getLoadBalancerRequest());
+        if (call == null || completion.status() == CompletionContext.Status.DISCARD) {
+            return;
+        }
+        long now = System.nanoTime();
+        long latency = now - call.startNanos();
+        ResponseData response = completion.getClientResponse();
+        boolean failed = completion.status() == CompletionContext.Status.FAILED
+                || (response != null && response.getHttpStatus() != null && response.getHttpStatus().is5xxServerError());
+        if (failed) {
+            call.stats().observe(Math.max(latency, failurePenaltyNanos), now, decayNanos);
+        } else if (!isStream(response)) {
+            // Длительность SSE/NDJSON-потока — не задержка экземпляра
+            call.stats().observe(latency, now, decayNanos);
+        }
+    }
+
+    /**
+     * Чем меньше, тем предпочтительнее экземпляр.
+     */
+    public double score(ServiceInstance instance, long now) {
+        return stats(instance).score(now, decayNanos);
+    }
+
+    /**
+     * Убирает статистику и метрики экземпляров сервиса, выбывших из discovery.
+     */
+    public void retain(String serviceId, List<ServiceInstance> live) {
+        String prefix = serviceId + "/";
+        Set<String> keys = new HashSet<>();
+        live.forEach(instance -> keys.add(key(instance)));
+        instances.entrySet().removeIf(entry -> {
+            if (!entry.getKey().startsWith(prefix) || keys.contains(entry.getKey())) {
+                return false;
+            }
+            entry.getValue().meters.forEach(meterRegistry::remove);
+            return true;
+        });
+    }
+
+    private static String key(ServiceInstance instance) {
+        return instance.getServiceId() + "/" + instance.getHost() + ":" + instance.getPort();
+    }
+
+    private InstanceStats stats(ServiceInstance instance) {
+        String address = instance.getHost() + ":" + instance.getPort();
+        return instances.computeIfAbsent(key(instance), key -> {
+            InstanceStats stats = new InstanceStats();
+            Meter score = Gauge.builder("loadbalancer.instance.score", stats, s -> s.score(System.nanoTime(), decayNanos) / 1_000_000)
+                    .description("Peak-EWMA latency in ms multiplied by outstanding requests + 1")
+                    .tag("service", instance.getServiceId())
+                    .tag("instance", address)
+                    .register(meterRegistry);
+            Meter outstanding = Gauge.builder("loadbalancer.instance.outstanding", stats, s -> s.outstanding.get())
+                    .description("Requests sent to the instance and not yet completed")
+                    .tag("service", instance.getServiceId())
+                    .tag("instance", address)
+                    .register(meterRegistry);
+            stats.meters = List.of(score, outstanding);
+            return stats;
+        });
+    }
+
+    private static boolean isStream(ResponseData response) {
+        MediaType contentType = response != null && response.getHeaders() != null ? response.getHeaders().getContentType() : null;
+        return contentType != null && (MediaType.TEXT_EVENT_STREAM.equalsTypeAndSubtype(contentType)
+                || MediaType.APPLICATION_NDJSON.equalsTypeAndSubtype(contentType));
+    }
+
+    private record InFlight(InstanceStats stats, long startNanos) {
+    }
+
+    private static final class InstanceStats {
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private double cost;
+        private long stamp = System.nanoTime();
+        private List<Meter> meters = List.of();
+
+        // Рост задержки принимается сразу (peak), снижение — экспоненциально
+        synchronized void observe(double latency, long now, double decayNanos) {
+            double weight = weight(now, decayNanos);
+            stamp = Math.max(stamp, now);
+            cost = latency > cost ? latency : cost * weight + latency * (1 - weight);
+        }
+
+        // Без новых замеров стоимость затухает, и «наказанный» экземпляр снова получает запросы
+        synchronized double score(long now, double decayNanos) {
+            int pending = outstanding.get();
+            if (cost == 0 && pending > 0) {
+                return UNMEASURED_PENALTY + pending;
+            }
+            return decayed(now, decayNanos) * (pending + 1);
+        }
+
+        private double decayed(long now, double decayNanos) {
+            return cost * weight(now, decayNanos);
+        }
+
+        private double weight(long now, double decayNanos) {
+            return Math.exp(-Math.max(now - stamp, 0) / decayNanos);
+        }
+    }
+}
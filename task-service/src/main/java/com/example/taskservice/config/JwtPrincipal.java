@@ -0,0 +1,20 @@
+package com.example.taskservice.config;
+
+import org.springframework.security.core.AuthenticatedPrincipal;
+
+import java.util.List;
+
+/**
+ * Данные пользователя из проверенного JWT. userId отсутствует у токенов
+ * старого формата, в которых есть только sub и exp.
+ * Не java.security.Principal: такой параметр WebFlux заполняет из
+ * exchange.getPrincipal() (там Authentication) раньше, чем срабатывает
+ * @AuthenticationPrincipal.
+ */
+public record JwtPrincipal(String username, Long userId, List<String> roles) implements AuthenticatedPrincipal {
+
+    @Override
+    public String getName() {
+        return username;
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.taskservice.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.function.SingletonSupplier;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Проверка JWT с однократно созданными ключом и парсером. Проверенные
+ * токены кэшируются по SHA-256 хэшу до момента истечения (exp).
+ */
+@Component
+public class JwtVerifier {
+
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String ROLES_CLAIM = "roles";
+    public static final String PRINCIPAL_ATTRIBUTE = JwtPrincipal.class.getName();
+
+    private final SingletonSupplier<JwtParser> parser;
+    private final Cache<String, VerifiedToken> cache;
+
+    public JwtVerifier(@Value("${jwt.secret}") String jwtSecret,
+                       @Value("${jwt.cache.max-size:10000}") long maxSize,
+                       @Value("${jwt.cache.max-ttl:10m}") Duration maxTtl,
+                       MeterRegistry meterRegistry) {
+        this.parser = SingletonSupplier.of(() -> Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(jwtSecret.getBytes()))
+                .build());
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String key, VerifiedToken token, long currentTime) {
+                        if (token.expiresAtMillis() == Long.MAX_VALUE) {
+                            return maxTtl.toNanos();
+                        }
+                        long remaining = Duration.ofMillis(token.expiresAtMillis() - System.currentTimeMillis()).toNanos();
+                        return Math.max(0, Math.min(remaining, maxTtl.toNanos()));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, VerifiedToken token, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, token, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, VerifiedToken token, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "jwt.claims");
+    }
+
+    public JwtPrincipal verify(String token) {
+        return cache.get(hash(token), key -> parse(token)).principal();
+    }
+
+    private VerifiedToken parse(String token) {
+        Claims claims = parser.obtain().parseSignedClaims(token).getPayload();
+        Number userId = claims.get(USER_ID_CLAIM, Number.class);
+        List<?> roles = claims.get(ROLES_CLAIM, List.class);
+        Date expiration = claims.getExpiration();
+        JwtPrincipal principal = new JwtPrincipal(
+                claims.getSubject(),
+                userId != null ? userId.longValue() : null,
+                roles != null ? roles.stream().map(String::valueOf).toList() : List.of());
+        return new VerifiedToken(principal, expiration != null ? expiration.getTime() : Long.MAX_VALUE);
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record VerifiedToken(JwtPrincipal principal, long expiresAtMillis) {
+    }
+}
@@ -1,8 +1,5 @@
 package com.example.taskservice.config;
 
-import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jwts;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpStatus;
@@ -14,15 +11,23 @@ import org.springframework.security.web.server.authentication.AuthenticationWebF
 import org.springframework.security.web.server.authentication.ServerAuthenticationConverter;
 import org.springframework.security.authentication.ReactiveAuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
-import io.jsonwebtoken.JwtParser;
+
+import java.util.List;
 
 @Configuration
 @EnableWebFluxSecurity
 public class SecurityConfig {
 
-    @Value("${jwt.secret}")
-    private String jwtSecret;
+    private final JwtVerifier jwtVerifier;
+    private final IdentityHeaders identityHeaders;
+
+    public SecurityConfig(JwtVerifier jwtVerifier, IdentityHeaders identityHeaders) {
+        this.jwtVerifier = jwtVerifier;
+        this.identityHeaders = identityHeaders;
+    }
 
     @Bean
     public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http) {
@@ -60,16 +65,19 @@ public class SecurityConfig {
                 return Mono.empty();
             }
 
+            // JWT уже проверен gateway; подписанные заголовки избавляют от повторного разбора
+            if (identityHeaders.isTrusted()) {
+                JwtPrincipal principal = identityHeaders.read(exchange.getRequest().getHeaders()::getFirst);
+                if (principal != null) {
+                    return Mono.just(authenticated(exchange, principal));
+                }
+            }
+
             String authHeader = exchange.getRequest().getHeaders().getFirst("Authorization");
             if (authHeader != null && authHeader.startsWith("Bearer ")) {
                 try {
                     String token = authHeader.substring(7);
-                    JwtParser parser = Jwts.parser()
-                            .setSigningKey(jwtSecret.getBytes())
-                            .build();
-                    Claims claims = parser.parseClaimsJws(token).getBody();
-                    String username = claims.getSubject();
-                    return Mono.just(new UsernamePasswordAuthenticationToken(username, null, null));
+                    return Mono.just(authenticated(exchange, jwtVerifier.verify(token)));
                 } catch (Exception e) {
                     return Mono.empty();
                 }
@@ -77,4 +85,12 @@ public class SecurityConfig {
             return Mono.empty();
         };
     }
+
+    private static UsernamePasswordAuthenticationToken authenticated(ServerWebExchange exchange, JwtPrincipal principal) {
+        exchange.getAttributes().put(JwtVerifier.PRINCIPAL_ATTRIBUTE, principal);
+        List<SimpleGrantedAuthority> authorities = principal.roles().stream()
+                .map(SimpleGrantedAuthority::new)
+                .toList();
+        return new UsernamePasswordAuthenticationToken(principal, null, authorities);
+    }
 }
\ No newline at end of file
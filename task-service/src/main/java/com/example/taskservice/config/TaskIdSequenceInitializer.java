@@ -0,0 +1,36 @@
+package com.example.taskservice.config;
+
+import com.example.taskservice.model.Task;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Таблица task_seq появляется при переходе с IDENTITY на SEQUENCE,
+ * а в task уже могут быть строки. Сдвигаем next_val за MAX(id), чтобы
+ * новые идентификаторы не пересекались с существующими.
+ */
+@Component
+public class TaskIdSequenceInitializer implements InitializingBean {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // EntityManagerFactory гарантирует, что ddl-auto уже создал таблицы
+    public TaskIdSequenceInitializer(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        long floor = Task.ID_ALLOCATION_SIZE + 1L;
+        int updated = jdbcTemplate.update(
+                "UPDATE " + Task.ID_SEQUENCE + " SET next_val = GREATEST(next_val, (SELECT COALESCE(MAX(id), 0) + ? FROM task))",
+                floor);
+        if (updated == 0) {
+            jdbcTemplate.update(
+                    "INSERT INTO " + Task.ID_SEQUENCE + " (next_val) SELECT COALESCE(MAX(id), 0) + ? FROM task",
+                    floor);
+        }
+    }
+}
@@ -1,11 +1,21 @@
 package com.example.taskservice.config;
 
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.client.loadbalancer.reactive.ReactorLoadBalancerExchangeFilterFunction;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
 
 @Configuration
+@LoadBalancerClients(defaultConfiguration = PeakEwmaLoadBalancerConfiguration.class)
 public class WebClientConfig {
 
     private final ReactorLoadBalancerExchangeFilterFunction lbFunction;
@@ -14,10 +24,44 @@ public class WebClientConfig {
         this.lbFunction = lbFunction;
     }
 
+    // Отдельный именованный пул для вызовов user-service; метрики
+    // reactor.netty.connection.provider.* помечены name=user-service
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider userServiceConnectionProvider(
+            @Value("${task.user-client.max-connections:100}") int maxConnections,
+            @Value("${task.user-client.pending-acquire-max-count:500}") int pendingAcquireMaxCount,
+            @Value("${task.user-client.pending-acquire-timeout:2s}") Duration pendingAcquireTimeout,
+            @Value("${task.user-client.max-idle-time:30s}") Duration maxIdleTime,
+            @Value("${task.user-client.max-life-time:5m}") Duration maxLifeTime,
+            @Value("${task.user-client.eviction-interval:10s}") Duration evictionInterval,
+            @Value("${task.user-client.lifo:true}") boolean lifo) {
+        ConnectionProvider.Builder builder = ConnectionProvider.builder("user-service")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                .pendingAcquireTimeout(pendingAcquireTimeout)
+                .maxIdleTime(maxIdleTime)
+                .maxLifeTime(maxLifeTime)
+                .evictInBackground(evictionInterval)
+                .metrics(true);
+        // LIFO отдаёт самое «тёплое» соединение, лишние простаивают и закрываются по max-idle-time
+        return (lifo ? builder.lifo() : builder.fifo()).build();
+    }
+
     @Bean
-    public WebClient webClient() {
+    public WebClient webClient(ConnectionProvider userServiceConnectionProvider,
+                               @Value("${task.user-client.connect-timeout:2s}") Duration connectTimeout,
+                               @Value("${task.user-client.response-timeout:5s}") Duration responseTimeout,
+                               @Value("${task.user-client.h2c:false}") boolean h2c) {
+        HttpClient httpClient = HttpClient.create(userServiceConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .responseTimeout(responseTimeout);
+        if (h2c) {
+            // HTTP/2 без TLS; на стороне user-service нужен server.http2.enabled=true
+            httpClient = httpClient.protocol(HttpProtocol.H2C, HttpProtocol.HTTP11);
+        }
         return WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
                 .filter(lbFunction)
                 .build();
     }
-}
\ No newline at end of file
+}
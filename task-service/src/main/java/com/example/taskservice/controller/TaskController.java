@@ -1,54 +1,104 @@
 package com.example.taskservice.controller;
 
+import com.example.taskservice.config.JwtPrincipal;
+import com.example.taskservice.dto.TaskBatchOperation;
+import com.example.taskservice.dto.TaskBatchResult;
 import com.example.taskservice.dto.TaskDTO;
-import com.example.taskservice.dto.UserDTO;
+import com.example.taskservice.dto.TaskEvent;
+import com.example.taskservice.dto.TaskListPage;
+import com.example.taskservice.dto.TaskPatchDTO;
+import com.example.taskservice.dto.TaskSnapshot;
+import com.example.taskservice.dto.TaskStatsDTO;
 import com.example.taskservice.model.Task;
+import com.example.taskservice.service.JdbcScheduler;
+import com.example.taskservice.service.TaskEventPublisher;
+import com.example.taskservice.service.TaskSearchIndex;
 import com.example.taskservice.service.TaskService;
-import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jwts;
+import com.example.taskservice.service.TaskWriteBehind;
+import com.example.taskservice.service.UserIdResolver;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import io.jsonwebtoken.JwtParser;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/tasks")
 public class TaskController {
 
+    static final String NEXT_AFTER_ID_HEADER = "X-Next-After-Id";
+
     @Autowired
     private TaskService taskService;
 
     @Autowired
-    private WebClient webClient;
-
-    @Value("${jwt.secret}")
-    private String jwtSecret;
-
-    private Mono<Long> getUserId(String token) {
-        return Mono.fromCallable(() -> {
-                    JwtParser parser = Jwts.parser()
-                            .setSigningKey(jwtSecret.getBytes())
-                            .build();
-                    Claims claims = parser.parseClaimsJws(token).getBody();
-                    return claims.getSubject();
-                })
-                .flatMap(username -> webClient.get()
-                        .uri("lb://user-service/users/" + username)
-                        .retrieve()
-                        .onStatus(status -> status.is4xxClientError(), response ->
-                                Mono.error(new RuntimeException("User not found")))
-                        .bodyToMono(UserDTO.class))
-                .map(UserDTO::getId)
-                .switchIfEmpty(Mono.error(new RuntimeException("User not found")))
-                .onErrorMap(e -> new RuntimeException("Invalid token or user not found", e));
+    private JdbcScheduler jdbcScheduler;
+
+    @Autowired
+    private UserIdResolver userIdResolver;
+
+    @Autowired
+    private TaskSearchIndex taskSearchIndex;
+
+    @Autowired
+    private TaskEventPublisher taskEventPublisher;
+
+    @Autowired
+    private TaskWriteBehind taskWriteBehind;
+
+    @Value("${task.page.default-size:100}")
+    private int defaultPageSize;
+
+    @Value("${task.page.max-size:1000}")
+    private int maxPageSize;
+
+    @Value("${task.page.stream-chunk-size:500}")
+    private int streamChunkSize;
+
+    @Value("${task.batch.max-operations:5000}")
+    private int maxBatchOperations;
+
+    // В 401 превращаются только ошибки определения пользователя; сбои базы,
+    // пула и нарушения целостности обрабатываются в каждом методе отдельно
+    private Mono<Long> getUserId(JwtPrincipal principal, String authHeader) {
+        if (principal.userId() != null) {
+            return Mono.just(principal.userId());
+        }
+        String token = authHeader.replace("Bearer ", "");
+        return userIdResolver.resolve(principal.username(), token)
+                .switchIfEmpty(Mono.error(new UnresolvedUserException("User not found", null)))
+                .onErrorMap(e -> !(e instanceof UnresolvedUserException),
+                        e -> new UnresolvedUserException("Invalid token or user not found", e));
+    }
+
+    private static final class UnresolvedUserException extends RuntimeException {
+        UnresolvedUserException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    // Очередь JdbcScheduler переполнена — для любого метода контроллера
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<Void> jdbcOverloaded() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
     }
 
     private TaskDTO toTaskDTO(Task task) {
@@ -58,6 +108,18 @@ public class TaskController {
         dto.setDescription(task.getDescription());
         dto.setCompleted(task.isCompleted());
         dto.setUserId(task.getUserId());
+        dto.setVersion(task.getVersion());
+        return dto;
+    }
+
+    private TaskDTO toTaskDTO(TaskSnapshot task) {
+        TaskDTO dto = new TaskDTO();
+        dto.setId(task.id());
+        dto.setTitle(task.title());
+        dto.setDescription(task.description());
+        dto.setCompleted(task.completed());
+        dto.setUserId(task.userId());
+        dto.setVersion(task.version());
         return dto;
     }
 
@@ -72,43 +134,248 @@ public class TaskController {
     }
 
     @GetMapping
-    public Mono<ResponseEntity<Flux<TaskDTO>>> getTasks(@RequestHeader("Authorization") String authHeader) {
-        String token = authHeader.replace("Bearer ", "");
-        return getUserId(token)
-                .flatMap(userId -> Mono.just(taskService.getTasksByUserId(userId)))
-                .map(tasks -> tasks.stream().map(this::toTaskDTO).collect(Collectors.toList()))
-                .map(taskDtos -> ResponseEntity.ok(Flux.fromIterable(taskDtos)))
-                .onErrorResume(e -> Mono.just(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build()));
+    public Mono<ResponseEntity<Flux<TaskDTO>>> getTasks(@AuthenticationPrincipal JwtPrincipal principal,
+                                                        @RequestHeader("Authorization") String authHeader,
+                                                        @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                                        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                        @RequestParam(required = false) Long afterId,
+                                                        @RequestParam(required = false) Integer limit,
+                                                        @RequestParam(required = false) Boolean completed) {
+        if (accepts(accept, MediaType.APPLICATION_NDJSON)) {
+            return getUserId(principal, authHeader)
+                    .map(userId -> ResponseEntity.ok()
+                            .contentType(MediaType.APPLICATION_NDJSON)
+                            .body(streamTasks(userId, afterId, completed)))
+                    .onErrorResume(UnresolvedUserException.class, e -> Mono.just(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build()));
+        }
+
+        int pageSize = limit != null ? Math.max(1, Math.min(limit, maxPageSize)) : defaultPageSize;
+        // Без If-None-Match версия отдельно не читается: ETag строится по версии,
+        // полученной вместе со страницей
+        return getUserId(principal, authHeader)
+                .flatMap(userId -> jdbcScheduler.call(() -> {
+                    if (ifNoneMatch != null) {
+                        String current = listETag(userId, taskService.getListVersion(userId), afterId, pageSize, completed);
+                        if (etagMatches(ifNoneMatch, current)) {
+                            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                                    .eTag(current)
+                                    .cacheControl(CacheControl.noCache().cachePrivate())
+                                    .<Flux<TaskDTO>>build();
+                        }
+                    }
+                    TaskListPage page = taskService.getTaskPage(userId, afterId, completed, pageSize);
+                    List<TaskSnapshot> tasks = page.tasks();
+                    ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                            .eTag(listETag(userId, page.version(), afterId, pageSize, completed))
+                            .cacheControl(CacheControl.noCache().cachePrivate());
+                    if (tasks.size() == pageSize) {
+                        response.header(NEXT_AFTER_ID_HEADER, String.valueOf(tasks.get(tasks.size() - 1).id()));
+                    }
+                    return response.body(Flux.fromIterable(tasks).map(this::toTaskDTO));
+                }))
+                .onErrorResume(UnresolvedUserException.class, e -> Mono.just(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build()));
     }
 
-    @GetMapping("/{id}")
-    public Mono<ResponseEntity<TaskDTO>> getTask(@PathVariable Long id) {
-        return Mono.justOrEmpty(taskService.getTaskById(id))
-                .map(this::toTaskDTO)
+    // Строки отдаются клиенту по мере чтения страницами фиксированного размера,
+    // поэтому в памяти одновременно находится не больше пары страниц.
+    private Flux<TaskDTO> streamTasks(Long userId, Long afterId, Boolean completed) {
+        return jdbcScheduler.call(() -> taskService.getTasksByUserId(userId, afterId, completed, streamChunkSize))
+                .expand(page -> page.size() < streamChunkSize
+                        ? Mono.empty()
+                        : jdbcScheduler.call(() -> taskService.getTasksByUserId(
+                                userId, page.get(page.size() - 1).id(), completed, streamChunkSize)))
+                .concatMapIterable(page -> page)
+                .map(this::toTaskDTO);
+    }
+
+    private static boolean accepts(String accept, MediaType mediaType) {
+        if (accept == null) {
+            return false;
+        }
+        try {
+            return MediaType.parseMediaTypes(accept).stream().anyMatch(mediaType::equalsTypeAndSubtype);
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+    }
+
+    private static String listETag(Long userId, long version, Long afterId, int limit, Boolean completed) {
+        String state = userId + ":" + version + ":" + afterId + ":" + limit + ":" + completed;
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(state.getBytes(StandardCharsets.US_ASCII));
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String taskETag(Long id, long version) {
+        return "\"" + id + "-" + version + "\"";
+    }
+
+    private static boolean etagMatches(String header, String etag) {
+        if (header == null) {
+            return false;
+        }
+        for (String candidate : header.split(",")) {
+            String value = candidate.trim();
+            if (value.equals("*") || value.equals(etag) || value.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Версия из If-Match вида "id-version"; -1 не совпадёт ни с одной версией,
+    // поэтому чужой или испорченный ETag приводит к 412
+    private static Long ifMatchVersion(Long id, String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String prefix = "\"" + id + "-";
+        for (String candidate : ifMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith(prefix) && value.endsWith("\"") && value.length() > prefix.length() + 1) {
+                try {
+                    return Long.parseLong(value.substring(prefix.length(), value.length() - 1));
+                } catch (NumberFormatException e) {
+                    return -1L;
+                }
+            }
+        }
+        return -1L;
+    }
+
+    @GetMapping("/stats")
+    public Mono<ResponseEntity<TaskStatsDTO>> getStats(@AuthenticationPrincipal JwtPrincipal principal,
+                                                       @RequestHeader("Authorization") String authHeader) {
+        return getUserId(principal, authHeader)
+                .flatMap(userId -> jdbcScheduler.call(() -> taskService.getTaskStats(userId)))
                 .map(ResponseEntity::ok)
-                .switchIfEmpty(Mono.just(ResponseEntity.notFound().build()));
+                .onErrorResume(UnresolvedUserException.class, e -> Mono.just(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build()));
+    }
+
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Mono<ResponseEntity<Flux<ServerSentEvent<TaskEvent>>>> events(@AuthenticationPrincipal JwtPrincipal principal,
+                                                                         @RequestHeader("Authorization") String authHeader) {
+        return getUserId(principal, authHeader)
+                .map(userId -> ResponseEntity.ok(taskEventPublisher.subscribe(userId)))
+                .onErrorResume(UnresolvedUserException.class, e -> Mono.just(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build()));
+    }
+
+    @GetMapping("/search")
+    public Mono<ResponseEntity<Flux<TaskDTO>>> search(@RequestParam("q") String query,
+                                                      @RequestParam(required = false) Integer limit,
+                                                      @AuthenticationPrincipal JwtPrincipal principal,
+                                                      @RequestHeader("Authorization") String authHeader) {
+        if (!taskSearchIndex.isReady()) {
+            return Mono.just(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+        }
+        int resultSize = limit != null ? Math.max(1, Math.min(limit, maxPageSize)) : defaultPageSize;
+        return getUserId(principal, authHeader)
+                .map(userId -> ResponseEntity.ok(Flux.fromIterable(taskSearchIndex.search(userId, query, resultSize))
+                        .map(this::toTaskDTO)))
+                .onErrorResume(UnresolvedUserException.class, e -> Mono.just(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build()));
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<TaskDTO>> getTask(@PathVariable Long id,
+                                                 @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return jdbcScheduler.call(() -> {
+                    // Для условного запроса сначала читается только версия
+                    if (ifNoneMatch != null) {
+                        Optional<Long> version = taskService.getTaskVersion(id);
+                        if (version.isEmpty()) {
+                            return ResponseEntity.notFound().<TaskDTO>build();
+                        }
+                        String etag = taskETag(id, version.get());
+                        if (etagMatches(ifNoneMatch, etag)) {
+                            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).<TaskDTO>build();
+                        }
+                    }
+                    return taskService.getTaskById(id)
+                            .map(task -> ResponseEntity.ok().eTag(taskETag(id, task.getVersion())).body(toTaskDTO(task)))
+                            .orElseGet(() -> ResponseEntity.notFound().build());
+                });
     }
 
     @PostMapping
-    public Mono<ResponseEntity<TaskDTO>> createTask(@RequestBody TaskDTO taskDTO, @RequestHeader("Authorization") String authHeader) {
-        String token = authHeader.replace("Bearer ", "");
-        return getUserId(token)
+    public Mono<ResponseEntity<TaskDTO>> createTask(@RequestBody TaskDTO taskDTO,
+                                                    @AuthenticationPrincipal JwtPrincipal principal,
+                                                    @RequestHeader("Authorization") String authHeader) {
+        return getUserId(principal, authHeader)
                 .map(userId -> {
                     Task task = toTask(taskDTO);
                     task.setUserId(userId);
                     return task;
                 })
-                .map(taskService::saveTask)
-                .map(this::toTaskDTO)
+                .flatMap(task -> task.getId() == null && taskWriteBehind.isEnabled()
+                        ? Mono.just(enqueue(task))
+                        : createNow(task, taskDTO.getVersion()))
+                .onErrorResume(OptimisticLockingFailureException.class, e -> Mono.just(ResponseEntity.status(HttpStatus.CONFLICT).build()))
+                .onErrorResume(DataIntegrityViolationException.class, e -> Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST).build()))
+                .onErrorResume(UnresolvedUserException.class, e -> Mono.just(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build()));
+    }
+
+    // id назначается при групповой записи и приходит клиенту событием CREATED
+    private ResponseEntity<TaskDTO> enqueue(Task task) {
+        TaskDTO accepted = toTaskDTO(task);
+        return taskWriteBehind.offer(task)
+                ? ResponseEntity.accepted().body(accepted)
+                : ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build();
+    }
+
+    private Mono<ResponseEntity<TaskDTO>> createNow(Task task, Long expectedVersion) {
+        return jdbcScheduler.call(() -> taskService.saveTask(task, expectedVersion))
+                .map(saved -> saved
+                        .map(value -> ResponseEntity.ok().eTag(taskETag(value.getId(), value.getVersion())).body(toTaskDTO(value)))
+                        .orElseGet(() -> ResponseEntity.notFound().build()));
+    }
+
+    @PostMapping("/batch")
+    public Mono<ResponseEntity<List<TaskBatchResult>>> applyBatch(@RequestBody List<TaskBatchOperation> operations,
+                                                                  @AuthenticationPrincipal JwtPrincipal principal,
+                                                                  @RequestHeader("Authorization") String authHeader) {
+        if (operations.size() > maxBatchOperations) {
+            return Mono.just(ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build());
+        }
+        return getUserId(principal, authHeader)
+                .flatMap(userId -> jdbcScheduler.call(() -> taskService.applyBatch(userId, operations)))
                 .map(ResponseEntity::ok)
-                .onErrorResume(e -> Mono.just(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build()));
+                .onErrorResume(OptimisticLockingFailureException.class, e -> Mono.just(ResponseEntity.status(HttpStatus.CONFLICT).build()))
+                .onErrorResume(DataIntegrityViolationException.class, e -> Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST).build()))
+                .onErrorResume(UnresolvedUserException.class, e -> Mono.just(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build()));
+    }
+
+    @PatchMapping("/{id}")
+    public Mono<ResponseEntity<Void>> patchTask(@PathVariable Long id,
+                                                @RequestBody TaskPatchDTO patch,
+                                                @AuthenticationPrincipal JwtPrincipal principal,
+                                                @RequestHeader("Authorization") String authHeader,
+                                                @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion = ifMatchVersion(id, ifMatch);
+        return getUserId(principal, authHeader)
+                .flatMap(userId -> jdbcScheduler.call(() -> taskService.patchTask(id, userId, patch, expectedVersion))
+                        .map(result -> switch (result) {
+                            case UPDATED -> expectedVersion != null
+                                    ? ResponseEntity.noContent().eTag(taskETag(id, expectedVersion + 1)).<Void>build()
+                                    : ResponseEntity.noContent().<Void>build();
+                            case NOT_FOUND -> ResponseEntity.notFound().<Void>build();
+                            case CONFLICT -> ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).<Void>build();
+                        }))
+                .onErrorResume(DataIntegrityViolationException.class, e -> Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST).build()))
+                .onErrorResume(UnresolvedUserException.class, e -> Mono.just(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build()));
     }
 
     @DeleteMapping("/{id}")
-    public Mono<ResponseEntity<Void>> deleteTask(@PathVariable Long id) {
-        return Mono.justOrEmpty(taskService.getTaskById(id))
-                .doOnNext(task -> taskService.deleteTask(id))
-                .map(task -> ResponseEntity.noContent().<Void>build())
-                .switchIfEmpty(Mono.just(ResponseEntity.notFound().build()));
+    public Mono<ResponseEntity<Void>> deleteTask(@PathVariable Long id,
+                                                 @AuthenticationPrincipal JwtPrincipal principal,
+                                                 @RequestHeader("Authorization") String authHeader) {
+        return getUserId(principal, authHeader)
+                .flatMap(userId -> jdbcScheduler.call(() -> taskService.deleteTask(id, userId))
+                        .map(deleted -> deleted
+                                ? ResponseEntity.noContent().<Void>build()
+                                : ResponseEntity.notFound().<Void>build()))
+                .onErrorResume(UnresolvedUserException.class, e -> Mono.just(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build()));
     }
 }
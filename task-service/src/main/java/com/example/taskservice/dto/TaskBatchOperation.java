@@ -0,0 +1,27 @@
+package com.example.taskservice.dto;
+
+public class TaskBatchOperation {
+
+    public enum Type { CREATE, UPDATE, DELETE }
+
+    private Type op;
+    private Long id;
+    private String title;
+    private String description;
+    private Boolean completed;
+    private Long version;
+
+    // Геттеры и сеттеры
+    public Type getOp() { return op; }
+    public void setOp(Type op) { this.op = op; }
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+    public Boolean getCompleted() { return completed; }
+    public void setCompleted(Boolean completed) { this.completed = completed; }
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+}
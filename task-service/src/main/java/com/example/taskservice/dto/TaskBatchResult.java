@@ -0,0 +1,27 @@
+package com.example.taskservice.dto;
+
+public class TaskBatchResult {
+
+    public enum Status { CREATED, UPDATED, DELETED, NOT_FOUND, CONFLICT, INVALID }
+
+    private int index;
+    private Status status;
+    private Long id;
+
+    public TaskBatchResult() {
+    }
+
+    public TaskBatchResult(int index, Status status, Long id) {
+        this.index = index;
+        this.status = status;
+        this.id = id;
+    }
+
+    // Геттеры и сеттеры
+    public int getIndex() { return index; }
+    public void setIndex(int index) { this.index = index; }
+    public Status getStatus() { return status; }
+    public void setStatus(Status status) { this.status = status; }
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+}
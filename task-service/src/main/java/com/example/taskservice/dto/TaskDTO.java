@@ -6,6 +6,7 @@ public class TaskDTO {
     private String description;
     private boolean completed;
     private Long userId;
+    private Long version;
 
     // Геттеры и сеттеры
     public Long getId() { return id; }
@@ -18,4 +19,6 @@ public class TaskDTO {
     public void setCompleted(boolean completed) { this.completed = completed; }
     public Long getUserId() { return userId; }
     public void setUserId(Long userId) { this.userId = userId; }
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
 }
\ No newline at end of file
@@ -0,0 +1,18 @@
+package com.example.taskservice.dto;
+
+/**
+ * Изменение задачи для SSE-подписчиков. Для UPDATED после PATCH
+ * заполнены только изменённые поля.
+ */
+public record TaskEvent(Type type, Long id, String title, String description, Boolean completed) {
+
+    public enum Type { CREATED, UPDATED, DELETED }
+
+    public static TaskEvent of(Type type, TaskSnapshot task) {
+        return new TaskEvent(type, task.id(), task.title(), task.description(), task.completed());
+    }
+
+    public static TaskEvent deleted(Long id) {
+        return new TaskEvent(Type.DELETED, id, null, null, null);
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.taskservice.dto;
+
+import java.util.List;
+
+/**
+ * Страница задач и версия списка пользователя, прочитанная до неё.
+ */
+public record TaskListPage(long version, List<TaskSnapshot> tasks) {
+
+    public TaskListPage limit(int limit) {
+        return tasks.size() > limit ? new TaskListPage(version, tasks.subList(0, limit)) : this;
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.taskservice.dto;
+
+public class TaskPatchDTO {
+    private String title;
+    private String description;
+    private Boolean completed;
+
+    // Геттеры и сеттеры
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+    public Boolean getCompleted() { return completed; }
+    public void setCompleted(Boolean completed) { this.completed = completed; }
+}
@@ -0,0 +1,25 @@
+package com.example.taskservice.dto;
+
+import com.example.taskservice.model.Task;
+
+/**
+ * Неизменяемый снимок задачи для кэшей и индексов; не привязан к
+ * persistence context.
+ */
+public record TaskSnapshot(Long id, Long userId, String title, String description, boolean completed,
+                           long version) {
+
+    public static TaskSnapshot of(Task task) {
+        return new TaskSnapshot(task.getId(), task.getUserId(), task.getTitle(), task.getDescription(),
+                task.isCompleted(), task.getVersion());
+    }
+
+    // Грубая оценка занимаемой памяти для бюджета кэша
+    public int estimatedSize() {
+        return 64 + 2 * (length(title) + length(description));
+    }
+
+    private static int length(String value) {
+        return value != null ? value.length() : 0;
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.taskservice.dto;
+
+public class TaskStatsDTO {
+    private long total;
+    private long open;
+    private long completed;
+
+    // Геттеры и сеттеры
+    public long getTotal() { return total; }
+    public void setTotal(long total) { this.total = total; }
+    public long getOpen() { return open; }
+    public void setOpen(long open) { this.open = open; }
+    public long getCompleted() { return completed; }
+    public void setCompleted(long completed) { this.completed = completed; }
+}
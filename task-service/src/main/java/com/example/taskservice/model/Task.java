@@ -4,16 +4,32 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_task_user_id_version", columnList = "user_id, id, version"),
+        @Index(name = "idx_task_user_completed_id", columnList = "user_id, completed, id")
+})
 public class Task {
+    // Идентификаторы выделяются блоками, иначе Hibernate не может батчить INSERT
+    public static final String ID_SEQUENCE = "task_seq";
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+    @SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
     private String title;
     private String description;
     private boolean completed;
     private Long userId;
+    // Примитив: у строк, созданных до появления колонки, версия читается как 0
+    @Version
+    private long version;
 
     // Геттеры и сеттеры
     public Long getId() { return id; }
@@ -26,4 +42,6 @@ public class Task {
     public void setCompleted(boolean completed) { this.completed = completed; }
     public Long getUserId() { return userId; }
     public void setUserId(Long userId) { this.userId = userId; }
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
 }
\ No newline at end of file
@@ -0,0 +1,22 @@
+package com.example.taskservice.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Счётчик изменений списка задач пользователя для ETag в GET /tasks.
+ * Увеличивается в той же транзакции, что и запись задач.
+ */
+@Entity
+@Table(name = "task_list_version")
+public class TaskListVersion {
+    @Id
+    private Long userId;
+    private long version;
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+}
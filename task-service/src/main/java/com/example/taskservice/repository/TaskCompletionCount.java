@@ -0,0 +1,6 @@
+package com.example.taskservice.repository;
+
+public interface TaskCompletionCount {
+    boolean getCompleted();
+    long getTotal();
+}
@@ -0,0 +1,22 @@
+package com.example.taskservice.repository;
+
+import com.example.taskservice.model.TaskListVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface TaskListVersionRepository extends JpaRepository<TaskListVersion, Long> {
+
+    @Query("select v.version from TaskListVersion v where v.userId = :userId")
+    Optional<Long> findVersion(@Param("userId") Long userId);
+
+    // Без @Transactional: вызывается только внутри транзакции записи задач,
+    // первая запись пользователя создаёт строку
+    @Modifying
+    @Query(value = "insert into task_list_version (user_id, version) values (:userId, 1) " +
+            "on duplicate key update version = version + 1", nativeQuery = true)
+    int increment(@Param("userId") Long userId);
+}
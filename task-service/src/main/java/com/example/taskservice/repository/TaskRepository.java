@@ -1,10 +1,56 @@
 package com.example.taskservice.repository;
 
 import com.example.taskservice.model.Task;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface TaskRepository extends JpaRepository<Task, Long> {
-    List<Task> findByUserId(Long userId);
+    List<Task> findByUserIdAndIdGreaterThanOrderByIdAsc(Long userId, Long afterId, Limit limit);
+
+    List<Task> findByUserIdAndCompletedAndIdGreaterThanOrderByIdAsc(Long userId, boolean completed, Long afterId, Limit limit);
+
+    List<Task> findByUserIdAndIdIn(Long userId, Collection<Long> ids);
+
+    List<Task> findByIdGreaterThanAndIdLessThanEqualOrderByIdAsc(Long fromId, Long toId, Limit limit);
+
+    @Query("select max(t.id) from Task t")
+    Long findMaxId();
+
+    boolean existsByIdAndUserId(Long id, Long userId);
+
+    @Query("select t.version from Task t where t.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    @Query("select t.version from Task t where t.id = :id and t.userId = :userId")
+    Optional<Long> findVersionByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
+
+    // Изменение и удаление одним запросом с проверкой владельца;
+    // если version передана, строка меняется только при совпадении версии
+    @Modifying
+    @Transactional
+    @Query("update Task t set t.title = coalesce(:title, t.title), " +
+            "t.description = coalesce(:description, t.description), " +
+            "t.completed = coalesce(:completed, t.completed), " +
+            "t.version = t.version + 1 " +
+            "where t.id = :id and t.userId = :userId and (:version is null or t.version = :version)")
+    int patchByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId,
+                           @Param("title") String title, @Param("description") String description,
+                           @Param("completed") Boolean completed, @Param("version") Long version);
+
+    @Modifying
+    @Transactional
+    @Query("delete from Task t where t.id = :id and t.userId = :userId")
+    int deleteByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
+
+    // Агрегат читается только из индекса (user_id, completed, id)
+    @Query("select t.completed as completed, count(t) as total from Task t where t.userId = :userId group by t.completed")
+    List<TaskCompletionCount> countByCompletion(@Param("userId") Long userId);
 }
@@ -0,0 +1,82 @@
+package com.example.taskservice.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Выполняет блокирующие JPA/JDBC вызовы вне event loop reactor-netty.
+ * Число потоков ограничено размером пула соединений, очередь ограничена,
+ * при переполнении вызов завершается RejectedExecutionException.
+ * <p>
+ * Потоки виртуальные, поэтому драйвер должен быть не ниже Connector/J 9.x:
+ * в 8.0.x сетевой ввод-вывод идёт внутри synchronized, виртуальный поток
+ * закрепляется за несущим, и одновременно выполняется не больше вызовов,
+ * чем ядер процессора, а не task.jdbc.pool-size.
+ */
+@Component
+public class JdbcScheduler implements DisposableBean {
+
+    private final ThreadPoolExecutor executor;
+    private final Scheduler scheduler;
+    private final Timer waitTimer;
+    private final Timer executionTimer;
+
+    public JdbcScheduler(MeterRegistry meterRegistry,
+                         @Value("${task.jdbc.pool-size:10}") int poolSize,
+                         @Value("${task.jdbc.queue-capacity:1000}") int queueCapacity) {
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofVirtual().name("jdbc-", 0).factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.scheduler = Schedulers.fromExecutorService(executor, "jdbc");
+
+        Gauge.builder("task.jdbc.queue.depth", executor, e -> e.getQueue().size())
+                .description("Blocking JDBC calls waiting for a worker")
+                .register(meterRegistry);
+        Gauge.builder("task.jdbc.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Blocking JDBC calls in progress")
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("task.jdbc.wait")
+                .description("Time a JDBC call spent queued before execution")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.executionTimer = Timer.builder("task.jdbc.execution")
+                .description("Time spent executing a JDBC call")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    public <T> Mono<T> call(Callable<T> task) {
+        return Mono.defer(() -> {
+            long enqueuedAt = System.nanoTime();
+            return Mono.fromCallable(() -> {
+                waitTimer.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+                return executionTimer.recordCallable(task);
+            }).subscribeOn(scheduler);
+        });
+    }
+
+    public Mono<Void> run(Runnable task) {
+        return call(() -> {
+            task.run();
+            return null;
+        }).then();
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.dispose();
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.taskservice.service;
+
+import com.example.taskservice.dto.TaskEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Раздаёт изменения задач SSE-подписчикам того же пользователя. У каждого
+ * подписчика свой ограниченный буфер: при переполнении отбрасываются
+ * самые старые события.
+ */
+@Component
+public class TaskEventPublisher {
+
+    private static final Sinks.EmitFailureHandler RETRY_NON_SERIALIZED =
+            Sinks.EmitFailureHandler.busyLooping(Duration.ofMillis(100));
+
+    private final ConcurrentHashMap<Long, Partition> partitions = new ConcurrentHashMap<>();
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private final AtomicLong backlog = new AtomicLong();
+    private final Counter published;
+    private final Counter dropped;
+    private final int bufferSize;
+    private final Duration heartbeatInterval;
+
+    public TaskEventPublisher(MeterRegistry meterRegistry,
+                              @Value("${task.events.buffer-size:256}") int bufferSize,
+                              @Value("${task.events.heartbeat-interval:15s}") Duration heartbeatInterval) {
+        this.bufferSize = bufferSize;
+        this.heartbeatInterval = heartbeatInterval;
+        Gauge.builder("task.events.subscribers", subscribers, AtomicInteger::get).register(meterRegistry);
+        Gauge.builder("task.events.backlog", backlog, AtomicLong::get)
+                .description("Events buffered for slow subscribers")
+                .register(meterRegistry);
+        this.published = Counter.builder("task.events.published").register(meterRegistry);
+        this.dropped = Counter.builder("task.events.dropped")
+                .description("Events dropped from full subscriber buffers")
+                .register(meterRegistry);
+    }
+
+    public void publish(Long userId, TaskEvent event) {
+        Partition partition = partitions.get(userId);
+        if (partition != null) {
+            published.increment();
+            partition.sink.emitNext(event, RETRY_NON_SERIALIZED);
+        }
+    }
+
+    public Flux<ServerSentEvent<TaskEvent>> subscribe(Long userId) {
+        return Flux.defer(() -> {
+            Partition partition = join(userId);
+            AtomicInteger pending = new AtomicInteger();
+            Flux<ServerSentEvent<TaskEvent>> events = partition.sink.asFlux()
+                    .doOnNext(event -> {
+                        pending.incrementAndGet();
+                        backlog.incrementAndGet();
+                    })
+                    .onBackpressureBuffer(bufferSize, event -> {
+                        pending.decrementAndGet();
+                        backlog.decrementAndGet();
+                        dropped.increment();
+                    }, BufferOverflowStrategy.DROP_OLDEST)
+                    .doOnNext(event -> {
+                        pending.decrementAndGet();
+                        backlog.decrementAndGet();
+                    })
+                    .map(event -> ServerSentEvent.builder(event)
+                            .event(event.type().name().toLowerCase(Locale.ROOT))
+                            .build());
+            Flux<ServerSentEvent<TaskEvent>> heartbeats = Flux.interval(heartbeatInterval)
+                    .map(tick -> ServerSentEvent.<TaskEvent>builder().comment("heartbeat").build());
+            return Flux.merge(1, events, heartbeats)
+                    .doFinally(signal -> {
+                        backlog.addAndGet(-pending.getAndSet(0));
+                        leave(userId);
+                    });
+        });
+    }
+
+    private Partition join(Long userId) {
+        subscribers.incrementAndGet();
+        return partitions.compute(userId, (key, partition) -> {
+            Partition joined = partition != null ? partition : new Partition();
+            joined.subscribers++;
+            return joined;
+        });
+    }
+
+    private void leave(Long userId) {
+        subscribers.decrementAndGet();
+        partitions.computeIfPresent(userId, (key, partition) -> --partition.subscribers == 0 ? null : partition);
+    }
+
+    // Счётчик подписчиков меняется только внутри compute по ключу userId
+    private static final class Partition {
+        private final Sinks.Many<TaskEvent> sink = Sinks.many().multicast().directBestEffort();
+        private int subscribers;
+    }
+}
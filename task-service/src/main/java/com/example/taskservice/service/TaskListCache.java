@@ -0,0 +1,87 @@
+package com.example.taskservice.service;
+
+import com.example.taskservice.dto.TaskListPage;
+import com.example.taskservice.dto.TaskSnapshot;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Read-through кэш первой страницы задач пользователя вместе с версией
+ * списка. Хранит неизменяемые снимки, вытесняется по LRU в пределах бюджета памяти и сбрасывается
+ * при каждой записи задач этого пользователя.
+ */
+@Component
+public class TaskListCache {
+
+    private final boolean enabled;
+    private final int pageSize;
+    private final Cache<Long, TaskListPage> cache;
+
+    public TaskListCache(MeterRegistry meterRegistry,
+                         @Value("${task.list-cache.enabled:false}") boolean enabled,
+                         @Value("${task.list-cache.page-size:100}") int pageSize,
+                         @Value("${task.list-cache.max-bytes:67108864}") long maxBytes,
+                         @Value("${task.list-cache.ttl:60s}") Duration ttl) {
+        this.enabled = enabled;
+        this.pageSize = pageSize;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Long userId, TaskListPage page) ->
+                        64 + page.tasks().stream().mapToInt(TaskSnapshot::estimatedSize).sum())
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "task.list");
+        Gauge.builder("task.list.cache.hit.ratio", cache, c -> c.stats().hitRate())
+                .register(meterRegistry);
+        Gauge.builder("task.list.cache.weight", cache, c -> c.policy().eviction()
+                        .map(eviction -> eviction.weightedSize().orElse(0L))
+                        .orElse(0L))
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    public boolean covers(Long afterId, Boolean completed, int limit) {
+        return enabled && afterId == null && completed == null && limit <= pageSize;
+    }
+
+    public int pageSize() {
+        return pageSize;
+    }
+
+    public TaskListPage get(Long userId, Supplier<TaskListPage> loader) {
+        return cache.get(userId, key -> {
+            TaskListPage page = loader.get();
+            return new TaskListPage(page.version(), List.copyOf(page.tasks()));
+        });
+    }
+
+    // Внутри транзакции сбрасываем после коммита, иначе параллельное чтение
+    // может успеть закэшировать ещё не закоммиченное состояние.
+    public void evict(Long userId) {
+        if (!enabled || userId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.invalidate(userId);
+                }
+            });
+        } else {
+            cache.invalidate(userId);
+        }
+    }
+}
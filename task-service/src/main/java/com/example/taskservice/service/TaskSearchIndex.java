@@ -0,0 +1,264 @@
+package com.example.taskservice.service;
+
+import com.example.taskservice.dto.TaskSnapshot;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Инвертированный индекс по заголовкам и описаниям задач, разбитый по userId.
+ * Обновляется из TaskService при каждой записи, при старте заполняется
+ * TaskSearchIndexLoader.
+ */
+@Component
+public class TaskSearchIndex {
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final double TITLE_WEIGHT = 2.0;
+    private static final double DESCRIPTION_WEIGHT = 1.0;
+
+    private final boolean enabled;
+    private final ConcurrentHashMap<Long, UserIndex> partitions = new ConcurrentHashMap<>();
+    private final Set<Long> removedWhileLoading = ConcurrentHashMap.newKeySet();
+    private final Set<Long> patchedWhileLoading = ConcurrentHashMap.newKeySet();
+    private volatile boolean ready;
+
+    public TaskSearchIndex(MeterRegistry meterRegistry,
+                           @Value("${task.search.enabled:true}") boolean enabled) {
+        this.enabled = enabled;
+        Gauge.builder("task.search.documents", partitions,
+                        p -> p.values().stream().mapToInt(UserIndex::size).sum())
+                .register(meterRegistry);
+        Gauge.builder("task.search.ready", this, index -> index.ready ? 1 : 0)
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    void markReady() {
+        ready = true;
+        removedWhileLoading.clear();
+        patchedWhileLoading.clear();
+    }
+
+    public void index(TaskSnapshot task) {
+        if (!enabled || task.userId() == null) {
+            return;
+        }
+        partitions.computeIfAbsent(task.userId(), userId -> new UserIndex()).put(task, false);
+    }
+
+    // Используется при начальной загрузке: не перезаписывает документы,
+    // уже обновлённые текущими запросами, и не возвращает удалённые.
+    // Строки задач, изменённых во время загрузки, могли быть прочитаны до
+    // изменения — их загрузчик перечитывает отдельно (reload).
+    void load(TaskSnapshot task) {
+        if (patchedWhileLoading.contains(task.id())) {
+            return;
+        }
+        reload(task);
+    }
+
+    void reload(TaskSnapshot task) {
+        if (task.userId() == null || removedWhileLoading.contains(task.id())) {
+            return;
+        }
+        partitions.computeIfAbsent(task.userId(), userId -> new UserIndex()).put(task, true);
+    }
+
+    /**
+     * Забирает id задач, изменённых во время начальной загрузки.
+     */
+    Set<Long> drainPatchedWhileLoading() {
+        Set<Long> drained = new HashSet<>(patchedWhileLoading);
+        patchedWhileLoading.removeAll(drained);
+        return drained;
+    }
+
+    public void patch(Long userId, Long taskId, String title, String description, Boolean completed) {
+        if (!enabled) {
+            return;
+        }
+        if (!ready) {
+            patchedWhileLoading.add(taskId);
+        }
+        UserIndex partition = partitions.get(userId);
+        if (partition != null) {
+            partition.patch(taskId, title, description, completed);
+        }
+    }
+
+    public void remove(Long userId, Long taskId) {
+        if (!enabled) {
+            return;
+        }
+        if (!ready) {
+            removedWhileLoading.add(taskId);
+        }
+        UserIndex partition = partitions.get(userId);
+        if (partition != null) {
+            partition.remove(taskId);
+        }
+    }
+
+    public List<TaskSnapshot> search(Long userId, String query, int limit) {
+        Set<String> terms = tokenize(query);
+        UserIndex partition = partitions.get(userId);
+        if (terms.isEmpty() || partition == null) {
+            return List.of();
+        }
+        return partition.search(terms, limit);
+    }
+
+    static Set<String> tokenize(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        if (text == null) {
+            return tokens;
+        }
+        for (String token : TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static final class UserIndex {
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private final Map<Long, TaskSnapshot> documents = new HashMap<>();
+        private final Map<String, Set<Long>> titlePostings = new HashMap<>();
+        private final Map<String, Set<Long>> descriptionPostings = new HashMap<>();
+
+        int size() {
+            lock.readLock().lock();
+            try {
+                return documents.size();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        // onlyIfNewer: документ из базы не заменяет более новую версию в индексе
+        void put(TaskSnapshot task, boolean onlyIfNewer) {
+            lock.writeLock().lock();
+            try {
+                TaskSnapshot previous = documents.get(task.id());
+                if (previous != null) {
+                    if (onlyIfNewer && previous.version() >= task.version()) {
+                        return;
+                    }
+                    unlink(previous);
+                }
+                documents.put(task.id(), task);
+                link(task);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void patch(Long taskId, String title, String description, Boolean completed) {
+            lock.writeLock().lock();
+            try {
+                TaskSnapshot previous = documents.get(taskId);
+                if (previous == null) {
+                    return;
+                }
+                TaskSnapshot updated = new TaskSnapshot(previous.id(), previous.userId(),
+                        title != null ? title : previous.title(),
+                        description != null ? description : previous.description(),
+                        completed != null ? completed : previous.completed(),
+                        previous.version() + 1);
+                unlink(previous);
+                documents.put(taskId, updated);
+                link(updated);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void remove(Long taskId) {
+            lock.writeLock().lock();
+            try {
+                TaskSnapshot previous = documents.remove(taskId);
+                if (previous != null) {
+                    unlink(previous);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        // Ранжирование: сумма idf совпавших терминов, совпадение в заголовке весит больше
+        List<TaskSnapshot> search(Set<String> terms, int limit) {
+            lock.readLock().lock();
+            try {
+                int total = documents.size();
+                Map<Long, Double> scores = new HashMap<>();
+                for (String term : terms) {
+                    Set<Long> inTitle = titlePostings.getOrDefault(term, Set.of());
+                    Set<Long> inDescription = descriptionPostings.getOrDefault(term, Set.of());
+                    Set<Long> matches = new HashSet<>(inTitle);
+                    matches.addAll(inDescription);
+                    if (matches.isEmpty()) {
+                        continue;
+                    }
+                    double idf = Math.log(1.0 + (double) total / matches.size());
+                    for (Long id : matches) {
+                        double weight = (inTitle.contains(id) ? TITLE_WEIGHT : 0)
+                                + (inDescription.contains(id) ? DESCRIPTION_WEIGHT : 0);
+                        scores.merge(id, idf * weight, Double::sum);
+                    }
+                }
+                List<Map.Entry<Long, Double>> ranked = new ArrayList<>(scores.entrySet());
+                ranked.sort(Map.Entry.<Long, Double>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder())));
+                return ranked.stream()
+                        .limit(limit)
+                        .map(entry -> documents.get(entry.getKey()))
+                        .toList();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        private void link(TaskSnapshot task) {
+            tokenize(task.title()).forEach(token ->
+                    titlePostings.computeIfAbsent(token, t -> new HashSet<>()).add(task.id()));
+            tokenize(task.description()).forEach(token ->
+                    descriptionPostings.computeIfAbsent(token, t -> new HashSet<>()).add(task.id()));
+        }
+
+        private void unlink(TaskSnapshot task) {
+            tokenize(task.title()).forEach(token -> unlink(titlePostings, token, task.id()));
+            tokenize(task.description()).forEach(token -> unlink(descriptionPostings, token, task.id()));
+        }
+
+        private static void unlink(Map<String, Set<Long>> postings, String token, Long taskId) {
+            Set<Long> ids = postings.get(token);
+            if (ids != null && ids.remove(taskId) && ids.isEmpty()) {
+                postings.remove(token);
+            }
+        }
+    }
+}
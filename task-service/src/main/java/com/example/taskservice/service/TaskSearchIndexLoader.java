@@ -0,0 +1,100 @@
+package com.example.taskservice.service;
+
+import com.example.taskservice.dto.TaskSnapshot;
+import com.example.taskservice.model.Task;
+import com.example.taskservice.repository.TaskRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Заполняет TaskSearchIndex из репозитория после старта: диапазон id делится
+ * на части, которые читаются параллельно страницами фиксированного размера.
+ */
+@Component
+public class TaskSearchIndexLoader {
+
+    private static final Logger log = LoggerFactory.getLogger(TaskSearchIndexLoader.class);
+
+    private final TaskRepository taskRepository;
+    private final TaskSearchIndex taskSearchIndex;
+    private final int parallelism;
+    private final int chunkSize;
+
+    public TaskSearchIndexLoader(TaskRepository taskRepository,
+                                 TaskSearchIndex taskSearchIndex,
+                                 @Value("${task.search.load-parallelism:4}") int parallelism,
+                                 @Value("${task.search.load-chunk-size:1000}") int chunkSize) {
+        this.taskRepository = taskRepository;
+        this.taskSearchIndex = taskSearchIndex;
+        this.parallelism = parallelism;
+        this.chunkSize = chunkSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (taskSearchIndex.isEnabled()) {
+            Thread.ofVirtual().name("search-index-loader").start(this::load);
+        }
+    }
+
+    private void load() {
+        long startedAt = System.currentTimeMillis();
+        Long maxId = taskRepository.findMaxId();
+        if (maxId != null) {
+            int ranges = parallelism * 4;
+            long step = Math.max(1, (maxId + ranges - 1) / ranges);
+            try (ExecutorService executor = Executors.newFixedThreadPool(parallelism, Thread.ofVirtual().factory())) {
+                List<Future<?>> futures = new ArrayList<>();
+                for (long from = 0; from < maxId; from += step) {
+                    long lower = from;
+                    long upper = Math.min(maxId, from + step);
+                    futures.add(executor.submit(() -> loadRange(lower, upper)));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } catch (Exception e) {
+                log.error("Search index rebuild failed", e);
+                return;
+            }
+        }
+        // Изменённые во время загрузки задачи читаются заново уже после изменения
+        Set<Long> patched;
+        while (!(patched = taskSearchIndex.drainPatchedWhileLoading()).isEmpty()) {
+            reloadTasks(new ArrayList<>(patched));
+        }
+        taskSearchIndex.markReady();
+        log.info("Search index rebuilt in {} ms", System.currentTimeMillis() - startedAt);
+    }
+
+    private void reloadTasks(List<Long> ids) {
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + chunkSize));
+            taskRepository.findAllById(chunk).forEach(task -> taskSearchIndex.reload(TaskSnapshot.of(task)));
+        }
+    }
+
+    private void loadRange(long fromExclusive, long toInclusive) {
+        long cursor = fromExclusive;
+        List<Task> page;
+        do {
+            page = taskRepository.findByIdGreaterThanAndIdLessThanEqualOrderByIdAsc(cursor, toInclusive, Limit.of(chunkSize));
+            page.forEach(task -> taskSearchIndex.load(TaskSnapshot.of(task)));
+            if (!page.isEmpty()) {
+                cursor = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == chunkSize);
+    }
+}
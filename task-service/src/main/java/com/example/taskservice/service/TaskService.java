@@ -1,32 +1,291 @@
 package com.example.taskservice.service;
 
+import com.example.taskservice.dto.TaskBatchOperation;
+import com.example.taskservice.dto.TaskBatchResult;
+import com.example.taskservice.dto.TaskEvent;
+import com.example.taskservice.dto.TaskListPage;
+import com.example.taskservice.dto.TaskPatchDTO;
+import com.example.taskservice.dto.TaskSnapshot;
+import com.example.taskservice.dto.TaskStatsDTO;
 import com.example.taskservice.model.Task;
+import com.example.taskservice.repository.TaskCompletionCount;
+import com.example.taskservice.repository.TaskListVersionRepository;
 import com.example.taskservice.repository.TaskRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 public class TaskService {
 
+    public enum PatchResult { UPDATED, NOT_FOUND, CONFLICT }
+
     @Autowired
     private TaskRepository taskRepository;
 
-    public Task saveTask(Task task) {
-        return taskRepository.save(task);
+    @Autowired
+    private TaskListVersionRepository taskListVersionRepository;
+
+    @Autowired
+    private TaskListCache taskListCache;
+
+    @Autowired
+    private TaskSearchIndex taskSearchIndex;
+
+    @Autowired
+    private TaskEventPublisher taskEventPublisher;
+
+    // Без ожидаемой версии обновление перезаписывает текущее состояние задачи,
+    // с ней — завершается ObjectOptimisticLockingFailureException при расхождении.
+    // Задачу с id может перезаписать только её владелец (task.userId), иначе
+    // возвращается пустой результат, как для несуществующей задачи
+    @Transactional
+    public Optional<Task> saveTask(Task task, Long expectedVersion) {
+        TaskEvent.Type type = task.getId() == null ? TaskEvent.Type.CREATED : TaskEvent.Type.UPDATED;
+        if (task.getId() != null) {
+            Optional<Long> currentVersion = taskRepository.findVersionByIdAndUserId(task.getId(), task.getUserId());
+            if (currentVersion.isEmpty()) {
+                return Optional.empty();
+            }
+            task.setVersion(expectedVersion != null ? expectedVersion : currentVersion.get());
+        }
+        // flush до снимка: ETag и событие получают уже увеличенную @Version
+        Task saved = taskRepository.saveAndFlush(task);
+        TaskSnapshot snapshot = TaskSnapshot.of(saved);
+        touchList(saved.getUserId());
+        afterCommit(() -> {
+            taskSearchIndex.index(snapshot);
+            taskEventPublisher.publish(snapshot.userId(), TaskEvent.of(type, snapshot));
+        });
+        return Optional.of(saved);
+    }
+
+    // Группа новых задач одной транзакцией; INSERT уходят JDBC-батчами
+    @Transactional
+    public List<Task> saveNewTasks(List<Task> tasks) {
+        List<Task> saved = taskRepository.saveAll(tasks);
+        // Строки счётчиков блокируются в одном порядке, чтобы группы не взаимоблокировались
+        saved.stream().map(Task::getUserId).filter(Objects::nonNull).distinct().sorted().forEach(this::touchList);
+        List<TaskSnapshot> snapshots = saved.stream().map(TaskSnapshot::of).toList();
+        afterCommit(() -> snapshots.forEach(snapshot -> {
+            taskSearchIndex.index(snapshot);
+            taskEventPublisher.publish(snapshot.userId(), TaskEvent.of(TaskEvent.Type.CREATED, snapshot));
+        }));
+        return saved;
+    }
+
+    public List<TaskSnapshot> getTasksByUserId(Long userId, Long afterId, Boolean completed, int limit) {
+        if (taskListCache.covers(afterId, completed, limit)) {
+            return getTaskPage(userId, afterId, completed, limit).tasks();
+        }
+        return loadTasks(userId, afterId, completed, limit);
+    }
+
+    // Первая страница из кэша отдаётся вместе с версией без обращения к базе
+    public TaskListPage getTaskPage(Long userId, Long afterId, Boolean completed, int limit) {
+        if (taskListCache.covers(afterId, completed, limit)) {
+            return taskListCache.get(userId, () -> loadPage(userId, null, null, taskListCache.pageSize()))
+                    .limit(limit);
+        }
+        return loadPage(userId, afterId, completed, limit);
+    }
+
+    // Версия читается до страницы: при гонке с записью ETag окажется старше
+    // тела, и следующий условный запрос просто получит 200
+    private TaskListPage loadPage(Long userId, Long afterId, Boolean completed, int limit) {
+        long version = getListVersion(userId);
+        return new TaskListPage(version, loadTasks(userId, afterId, completed, limit));
+    }
+
+    private List<TaskSnapshot> loadTasks(Long userId, Long afterId, Boolean completed, int limit) {
+        long cursor = afterId != null ? afterId : 0L;
+        List<Task> tasks = completed != null
+                ? taskRepository.findByUserIdAndCompletedAndIdGreaterThanOrderByIdAsc(userId, completed, cursor, Limit.of(limit))
+                : taskRepository.findByUserIdAndIdGreaterThanOrderByIdAsc(userId, cursor, Limit.of(limit));
+        return tasks.stream().map(TaskSnapshot::of).toList();
+    }
+
+    public TaskStatsDTO getTaskStats(Long userId) {
+        TaskStatsDTO stats = new TaskStatsDTO();
+        for (TaskCompletionCount count : taskRepository.countByCompletion(userId)) {
+            if (count.getCompleted()) {
+                stats.setCompleted(count.getTotal());
+            } else {
+                stats.setOpen(count.getTotal());
+            }
+        }
+        stats.setTotal(stats.getOpen() + stats.getCompleted());
+        return stats;
     }
 
-    public List<Task> getTasksByUserId(Long userId) {
-        return taskRepository.findByUserId(userId);
+    public long getListVersion(Long userId) {
+        return taskListVersionRepository.findVersion(userId).orElse(0L);
     }
 
     public Optional<Task> getTaskById(Long id) {
         return taskRepository.findById(id);
     }
 
-    public void deleteTask(Long id) {
-        taskRepository.deleteById(id);
+    public Optional<Long> getTaskVersion(Long id) {
+        return taskRepository.findVersionById(id);
+    }
+
+    @Transactional
+    public PatchResult patchTask(Long id, Long userId, TaskPatchDTO patch, Long expectedVersion) {
+        boolean updated = taskRepository.patchByIdAndUserId(id, userId,
+                patch.getTitle(), patch.getDescription(), patch.getCompleted(), expectedVersion) > 0;
+        if (!updated) {
+            return expectedVersion != null && taskRepository.existsByIdAndUserId(id, userId)
+                    ? PatchResult.CONFLICT : PatchResult.NOT_FOUND;
+        }
+        touchList(userId);
+        afterCommit(() -> {
+            taskSearchIndex.patch(userId, id, patch.getTitle(), patch.getDescription(), patch.getCompleted());
+            taskEventPublisher.publish(userId, new TaskEvent(TaskEvent.Type.UPDATED, id,
+                    patch.getTitle(), patch.getDescription(), patch.getCompleted()));
+        });
+        return PatchResult.UPDATED;
+    }
+
+    @Transactional
+    public boolean deleteTask(Long id, Long userId) {
+        boolean deleted = taskRepository.deleteByIdAndUserId(id, userId) > 0;
+        if (deleted) {
+            touchList(userId);
+            afterCommit(() -> {
+                taskSearchIndex.remove(userId, id);
+                taskEventPublisher.publish(userId, TaskEvent.deleted(id));
+            });
+        }
+        return deleted;
+    }
+
+    // Все операции выполняются в одной транзакции; INSERT/UPDATE/DELETE
+    // группируются Hibernate в JDBC-батчи размером hibernate.jdbc.batch_size.
+    @Transactional
+    public List<TaskBatchResult> applyBatch(Long userId, List<TaskBatchOperation> operations) {
+        List<Long> ids = operations.stream()
+                .filter(op -> op.getOp() == TaskBatchOperation.Type.UPDATE || op.getOp() == TaskBatchOperation.Type.DELETE)
+                .map(TaskBatchOperation::getId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        Map<Long, Task> owned = new HashMap<>();
+        if (!ids.isEmpty()) {
+            taskRepository.findByUserIdAndIdIn(userId, ids).forEach(task -> owned.put(task.getId(), task));
+        }
+
+        List<TaskBatchResult> results = new ArrayList<>(operations.size());
+        List<Task> written = new ArrayList<>();
+        List<Task> created = new ArrayList<>();
+        List<Long> deleted = new ArrayList<>();
+        for (int i = 0; i < operations.size(); i++) {
+            TaskBatchOperation op = operations.get(i);
+            if (op.getOp() == null) {
+                results.add(new TaskBatchResult(i, TaskBatchResult.Status.INVALID, op.getId()));
+                continue;
+            }
+            switch (op.getOp()) {
+                case CREATE -> {
+                    Task task = new Task();
+                    task.setTitle(op.getTitle());
+                    task.setDescription(op.getDescription());
+                    task.setCompleted(Boolean.TRUE.equals(op.getCompleted()));
+                    task.setUserId(userId);
+                    taskRepository.save(task);
+                    written.add(task);
+                    created.add(task);
+                    results.add(new TaskBatchResult(i, TaskBatchResult.Status.CREATED, task.getId()));
+                }
+                case UPDATE -> {
+                    Task task = op.getId() != null ? owned.get(op.getId()) : null;
+                    if (task == null) {
+                        results.add(new TaskBatchResult(i, TaskBatchResult.Status.NOT_FOUND, op.getId()));
+                        continue;
+                    }
+                    if (op.getVersion() != null && op.getVersion() != task.getVersion()) {
+                        results.add(new TaskBatchResult(i, TaskBatchResult.Status.CONFLICT, task.getId()));
+                        continue;
+                    }
+                    if (op.getTitle() != null) {
+                        task.setTitle(op.getTitle());
+                    }
+                    if (op.getDescription() != null) {
+                        task.setDescription(op.getDescription());
+                    }
+                    if (op.getCompleted() != null) {
+                        task.setCompleted(op.getCompleted());
+                    }
+                    written.add(task);
+                    results.add(new TaskBatchResult(i, TaskBatchResult.Status.UPDATED, task.getId()));
+                }
+                case DELETE -> {
+                    Task task = op.getId() != null ? owned.get(op.getId()) : null;
+                    if (task == null) {
+                        results.add(new TaskBatchResult(i, TaskBatchResult.Status.NOT_FOUND, op.getId()));
+                        continue;
+                    }
+                    if (op.getVersion() != null && op.getVersion() != task.getVersion()) {
+                        results.add(new TaskBatchResult(i, TaskBatchResult.Status.CONFLICT, task.getId()));
+                        continue;
+                    }
+                    owned.remove(task.getId());
+                    taskRepository.delete(task);
+                    written.remove(task);
+                    deleted.add(task.getId());
+                    results.add(new TaskBatchResult(i, TaskBatchResult.Status.DELETED, task.getId()));
+                }
+            }
+        }
+        // После flush у изменённых задач уже новая @Version — её и публикуем
+        taskRepository.flush();
+        if (!written.isEmpty() || !deleted.isEmpty()) {
+            touchList(userId);
+        }
+        List<TaskSnapshot> snapshots = written.stream().distinct().map(TaskSnapshot::of).toList();
+        Set<Long> createdIds = created.stream().map(Task::getId).collect(Collectors.toSet());
+        afterCommit(() -> {
+            snapshots.forEach(snapshot -> {
+                taskSearchIndex.index(snapshot);
+                taskEventPublisher.publish(userId, TaskEvent.of(createdIds.contains(snapshot.id())
+                        ? TaskEvent.Type.CREATED : TaskEvent.Type.UPDATED, snapshot));
+            });
+            deleted.forEach(id -> {
+                taskSearchIndex.remove(userId, id);
+                taskEventPublisher.publish(userId, TaskEvent.deleted(id));
+            });
+        });
+        return results;
+    }
+
+    // Счётчик списка увеличивается в транзакции записи, кэш сбрасывается после неё
+    private void touchList(Long userId) {
+        taskListVersionRepository.increment(userId);
+        taskListCache.evict(userId);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
     }
 }
@@ -0,0 +1,174 @@
+package com.example.taskservice.service;
+
+import com.example.taskservice.model.Task;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Асинхронная запись новых задач: POST подтверждается после постановки в
+ * ограниченную очередь, а отдельный поток сохраняет задачи группами по
+ * max-batch-size строк или через max-delay — одна транзакция на группу.
+ * При остановке приложения очередь дописывается до конца.
+ */
+@Component
+public class TaskWriteBehind implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(TaskWriteBehind.class);
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    private final TaskService taskService;
+    private final boolean enabled;
+    private final BlockingQueue<Task> queue;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final Duration shutdownTimeout;
+    private final DistributionSummary batchSize;
+    private final Timer commitTimer;
+    private final Counter failed;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public TaskWriteBehind(TaskService taskService,
+                           MeterRegistry meterRegistry,
+                           @Value("${task.write-behind.enabled:false}") boolean enabled,
+                           @Value("${task.write-behind.queue-capacity:10000}") int queueCapacity,
+                           @Value("${task.write-behind.max-batch-size:500}") int maxBatchSize,
+                           @Value("${task.write-behind.max-delay:10ms}") Duration maxDelay,
+                           @Value("${task.write-behind.shutdown-timeout:30s}") Duration shutdownTimeout) {
+        this.taskService = taskService;
+        this.enabled = enabled;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.shutdownTimeout = shutdownTimeout;
+
+        Gauge.builder("task.write-behind.queue.depth", queue, BlockingQueue::size)
+                .description("Accepted tasks waiting for a group commit")
+                .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("task.write-behind.batch.size")
+                .description("Rows written per group commit")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.commitTimer = Timer.builder("task.write-behind.commit")
+                .description("Time spent committing one group")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.failed = Counter.builder("task.write-behind.failed")
+                .description("Accepted tasks that could not be written")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Ставит новую задачу в очередь; false, если очередь заполнена.
+     */
+    public boolean offer(Task task) {
+        return running && queue.offer(task);
+    }
+
+    @Override
+    public void start() {
+        if (enabled && !running) {
+            running = true;
+            writer = Thread.ofVirtual().name("task-write-behind").start(this::drain);
+        }
+    }
+
+    // Веб-сервер останавливается раньше (фаза выше), поэтому к этому моменту
+    // новые задачи в очередь уже не поступают
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            if (!writer.join(shutdownTimeout)) {
+                log.warn("Write-behind queue not drained within {}, {} tasks left", shutdownTimeout, queue.size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void drain() {
+        List<Task> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Task first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < maxBatchSize) {
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= maxBatchSize || remaining <= 0 || !running) {
+                        break;
+                    }
+                    Task next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                commit(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("Write-behind writer interrupted, {} tasks left in queue", queue.size());
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void commit(List<Task> batch) {
+        batchSize.record(batch.size());
+        try {
+            commitTimer.record(() -> taskService.saveNewTasks(batch));
+        } catch (RuntimeException e) {
+            // Одна некорректная строка не должна терять всю группу
+            log.warn("Group commit of {} tasks failed, retrying one by one", batch.size(), e);
+            for (Task task : batch) {
+                task.setId(null);
+                try {
+                    taskService.saveNewTasks(List.of(task));
+                } catch (RuntimeException single) {
+                    failed.increment();
+                    log.error("Failed to write task for user {}", task.getUserId(), single);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.taskservice.service;
+
+import com.example.taskservice.dto.UserDTO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Кэш соответствия username -> userId с TTL, ограничением размера и
+ * отрицательным кэшированием. Одновременные промахи по одному username
+ * разделяют один запрос к user-service.
+ */
+@Component
+public class UserIdResolver {
+
+    private static final Long UNKNOWN_USER = -1L;
+
+    private final WebClient webClient;
+    private final Cache<String, Long> cache;
+    private final ConcurrentMap<String, Mono<Long>> inFlight = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter coalesced;
+
+    public UserIdResolver(WebClient webClient,
+                          MeterRegistry meterRegistry,
+                          @Value("${task.user-cache.max-size:10000}") long maxSize,
+                          @Value("${task.user-cache.ttl:10m}") Duration ttl,
+                          @Value("${task.user-cache.negative-ttl:30s}") Duration negativeTtl) {
+        this.webClient = webClient;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, Long>() {
+                    @Override
+                    public long expireAfterCreate(String username, Long userId, long currentTime) {
+                        return (UNKNOWN_USER.equals(userId) ? negativeTtl : ttl).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String username, Long userId, long currentTime, long currentDuration) {
+                        return expireAfterCreate(username, userId, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String username, Long userId, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "task.user.id");
+        this.hits = lookupCounter(meterRegistry, "hit");
+        this.misses = lookupCounter(meterRegistry, "miss");
+        this.coalesced = lookupCounter(meterRegistry, "coalesced");
+    }
+
+    private static Counter lookupCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("task.user.id.lookups")
+                .description("username -> userId resolutions by outcome")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Возвращает userId или пустой Mono, если пользователь не найден.
+     */
+    public Mono<Long> resolve(String username, String token) {
+        Long cached = cache.getIfPresent(username);
+        if (cached != null) {
+            hits.increment();
+            return UNKNOWN_USER.equals(cached) ? Mono.empty() : Mono.just(cached);
+        }
+
+        boolean[] leader = {false};
+        Mono<Long> lookup = inFlight.computeIfAbsent(username, key -> {
+            leader[0] = true;
+            return fetch(key, token)
+                    .doFinally(signal -> inFlight.remove(key))
+                    .cache();
+        });
+        (leader[0] ? misses : coalesced).increment();
+        return lookup.filter(userId -> !UNKNOWN_USER.equals(userId));
+    }
+
+    private Mono<Long> fetch(String username, String token) {
+        return webClient.get()
+                .uri("lb://user-service/users/{username}", username)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .exchangeToMono(response -> {
+                    if (response.statusCode().value() == HttpStatus.NOT_FOUND.value()) {
+                        return response.releaseBody().thenReturn(UNKNOWN_USER);
+                    }
+                    if (response.statusCode().isError()) {
+                        return response.createError();
+                    }
+                    return response.bodyToMono(UserDTO.class).mapNotNull(UserDTO::getId);
+                })
+                .defaultIfEmpty(UNKNOWN_USER)
+                .doOnNext(userId -> cache.put(username, userId));
+    }
+}
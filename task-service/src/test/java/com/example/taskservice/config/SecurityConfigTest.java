@@ -0,0 +1,73 @@
+package com.example.taskservice.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.core.Authentication;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SecurityConfigTest {
+
+    private static final String SECRET = "test-identity-secret";
+    private static final JwtPrincipal BOB = new JwtPrincipal("bob", 7L, List.of("ROLE_USER"));
+    private static final JwtPrincipal ALICE = new JwtPrincipal("alice", 8L, List.of("ROLE_USER"));
+
+    private final JwtVerifier jwtVerifier = mock(JwtVerifier.class);
+
+    @Test
+    void trustedSignedHeadersSkipTokenParsing() {
+        MockServerWebExchange exchange = exchange(signedBy(SECRET, BOB), "Bearer token");
+
+        Authentication authentication = convert(true, exchange);
+
+        assertEquals(BOB, authentication.getPrincipal());
+        assertEquals(BOB, exchange.getAttribute(JwtVerifier.PRINCIPAL_ATTRIBUTE));
+        verify(jwtVerifier, never()).verify(anyString());
+    }
+
+    @Test
+    void headersAreIgnoredWhenTrustIsDisabled() {
+        when(jwtVerifier.verify("token")).thenReturn(ALICE);
+
+        assertEquals(ALICE, convert(false, exchange(signedBy(SECRET, BOB), "Bearer token")).getPrincipal());
+        assertNull(convert(false, exchange(signedBy(SECRET, BOB), null)));
+    }
+
+    @Test
+    void headersSignedWithAnotherSecretFallBackToToken() {
+        when(jwtVerifier.verify("token")).thenReturn(ALICE);
+
+        assertEquals(ALICE, convert(true, exchange(signedBy("forged-secret", BOB), "Bearer token")).getPrincipal());
+        assertNull(convert(true, exchange(signedBy("forged-secret", BOB), null)));
+    }
+
+    private Authentication convert(boolean trusted, MockServerWebExchange exchange) {
+        IdentityHeaders identityHeaders = new IdentityHeaders(SECRET, Duration.ofSeconds(60), trusted);
+        return new SecurityConfig(jwtVerifier, identityHeaders).jwtAuthenticationConverter().convert(exchange).block();
+    }
+
+    private static HttpHeaders signedBy(String secret, JwtPrincipal principal) {
+        HttpHeaders headers = new HttpHeaders();
+        new IdentityHeaders(secret, Duration.ofSeconds(60), true).write(headers, principal);
+        return headers;
+    }
+
+    private static MockServerWebExchange exchange(HttpHeaders identity, String authorization) {
+        MockServerHttpRequest.BaseBuilder<?> request = MockServerHttpRequest.get("/tasks").headers(identity);
+        if (authorization != null) {
+            request.header(HttpHeaders.AUTHORIZATION, authorization);
+        }
+        return MockServerWebExchange.from(request);
+    }
+}
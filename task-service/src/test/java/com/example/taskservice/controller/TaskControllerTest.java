@@ -0,0 +1,198 @@
+package com.example.taskservice.controller;
+
+import com.example.taskservice.config.JwtPrincipal;
+import com.example.taskservice.dto.TaskListPage;
+import com.example.taskservice.dto.TaskPatchDTO;
+import com.example.taskservice.dto.TaskSnapshot;
+import com.example.taskservice.model.Task;
+import com.example.taskservice.service.JdbcScheduler;
+import com.example.taskservice.service.TaskEventPublisher;
+import com.example.taskservice.service.TaskSearchIndex;
+import com.example.taskservice.service.TaskService;
+import com.example.taskservice.service.TaskWriteBehind;
+import com.example.taskservice.service.UserIdResolver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.ReactiveAdapterRegistry;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.web.reactive.result.method.annotation.AuthenticationPrincipalArgumentResolver;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.config.EnableWebFlux;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import org.springframework.web.reactive.result.method.annotation.ArgumentResolverConfigurer;
+import org.springframework.web.server.WebFilter;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TaskControllerTest {
+
+    private static final JwtPrincipal PRINCIPAL = new JwtPrincipal("bob", 1L, List.of("ROLE_USER"));
+
+    private final JdbcScheduler jdbcScheduler = mock(JdbcScheduler.class);
+    private final TaskService taskService = mock(TaskService.class);
+    private AnnotationConfigApplicationContext context;
+    private WebTestClient client;
+
+    // Вместо цепочки Spring Security: пользователь уже аутентифицирован
+    @EnableWebFlux
+    static class WebConfig implements WebFluxConfigurer {
+
+        @Override
+        public void configureArgumentResolvers(ArgumentResolverConfigurer configurer) {
+            configurer.addCustomResolver(new AuthenticationPrincipalArgumentResolver(ReactiveAdapterRegistry.getSharedInstance()));
+        }
+
+        @Bean
+        WebFilter authentication() {
+            UsernamePasswordAuthenticationToken token = new UsernamePasswordAuthenticationToken(PRINCIPAL, null, List.of());
+            return (exchange, chain) -> chain.filter(exchange.mutate().principal(Mono.just(token)).build())
+                    .contextWrite(ReactiveSecurityContextHolder.withAuthentication(token));
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        context = new AnnotationConfigApplicationContext();
+        // Готовые синглтоны не проходят через @Autowired-обработку
+        context.getBeanFactory().registerSingleton("jdbcScheduler", jdbcScheduler);
+        context.getBeanFactory().registerSingleton("taskService", taskService);
+        context.getBeanFactory().registerSingleton("userIdResolver", mock(UserIdResolver.class));
+        context.getBeanFactory().registerSingleton("taskSearchIndex", mock(TaskSearchIndex.class));
+        context.getBeanFactory().registerSingleton("taskEventPublisher", mock(TaskEventPublisher.class));
+        context.getBeanFactory().registerSingleton("taskWriteBehind", mock(TaskWriteBehind.class));
+        context.register(WebConfig.class, TaskController.class);
+        context.refresh();
+        client = WebTestClient.bindToApplicationContext(context).build();
+        when(jdbcScheduler.call(any())).thenAnswer(invocation -> Mono.fromCallable(invocation.<Callable<?>>getArgument(0)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        context.close();
+    }
+
+    @Test
+    void rejectedJdbcCallReturnsServiceUnavailable() {
+        doReturn(Mono.error(new RejectedExecutionException("queue is full"))).when(jdbcScheduler).call(any());
+
+        client.get().uri("/tasks/1").exchange().expectStatus().isEqualTo(503);
+    }
+
+    @Test
+    void taskMatchingIfNoneMatchIsNotModifiedWithoutLoadingTask() {
+        when(taskService.getTaskVersion(5L)).thenReturn(Optional.of(3L));
+
+        client.get().uri("/tasks/5").header(HttpHeaders.IF_NONE_MATCH, "\"5-3\"").exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"5-3\"");
+        verify(taskService, never()).getTaskById(anyLong());
+    }
+
+    @Test
+    void staleTaskETagGetsFullResponse() {
+        when(taskService.getTaskVersion(5L)).thenReturn(Optional.of(4L));
+        when(taskService.getTaskById(5L)).thenReturn(Optional.of(task(5L, 4L)));
+
+        client.get().uri("/tasks/5").header(HttpHeaders.IF_NONE_MATCH, "\"5-3\"").exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"5-4\"");
+    }
+
+    @Test
+    void listETagRevalidatesUntilListVersionChanges() {
+        when(taskService.getTaskPage(1L, null, null, 100)).thenReturn(new TaskListPage(7, List.of(snapshot(5L))));
+        String etag = client.get().uri("/tasks").header(HttpHeaders.AUTHORIZATION, "Bearer token").exchange()
+                .expectStatus().isOk()
+                .returnResult(Void.class).getResponseHeaders().getETag();
+        // Без If-None-Match версия списка отдельно не читается
+        verify(taskService, never()).getListVersion(anyLong());
+
+        when(taskService.getListVersion(1L)).thenReturn(7L);
+        client.get().uri("/tasks").header(HttpHeaders.AUTHORIZATION, "Bearer token").header(HttpHeaders.IF_NONE_MATCH, etag)
+                .exchange()
+                .expectStatus().isNotModified();
+        verify(taskService, times(1)).getTaskPage(1L, null, null, 100);
+
+        when(taskService.getListVersion(1L)).thenReturn(8L);
+        when(taskService.getTaskPage(1L, null, null, 100)).thenReturn(new TaskListPage(8, List.of(snapshot(5L))));
+        String changed = client.get().uri("/tasks").header(HttpHeaders.AUTHORIZATION, "Bearer token").header(HttpHeaders.IF_NONE_MATCH, etag)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(Void.class).getResponseHeaders().getETag();
+        assertNotEquals(etag, changed);
+    }
+
+    @Test
+    void listETagDependsOnPageParameters() {
+        when(taskService.getTaskPage(eq(1L), any(), any(), eq(100))).thenReturn(new TaskListPage(7, List.of(snapshot(5L))));
+        when(taskService.getListVersion(1L)).thenReturn(7L);
+        String etag = client.get().uri("/tasks").header(HttpHeaders.AUTHORIZATION, "Bearer token").exchange()
+                .returnResult(Void.class).getResponseHeaders().getETag();
+
+        client.get().uri("/tasks?completed=true").header(HttpHeaders.AUTHORIZATION, "Bearer token")
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .exchange()
+                .expectStatus().isOk();
+    }
+
+    @Test
+    void patchWithCurrentIfMatchReturnsNextETag() {
+        when(taskService.patchTask(eq(5L), eq(1L), any(TaskPatchDTO.class), eq(3L))).thenReturn(TaskService.PatchResult.UPDATED);
+
+        client.patch().uri("/tasks/5").header(HttpHeaders.AUTHORIZATION, "Bearer token").header(HttpHeaders.IF_MATCH, "\"5-3\"")
+                .bodyValue(new TaskPatchDTO()).exchange()
+                .expectStatus().isNoContent()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"5-4\"");
+    }
+
+    @Test
+    void patchWithStaleIfMatchIsPreconditionFailed() {
+        when(taskService.patchTask(eq(5L), eq(1L), any(TaskPatchDTO.class), eq(2L))).thenReturn(TaskService.PatchResult.CONFLICT);
+
+        client.patch().uri("/tasks/5").header(HttpHeaders.AUTHORIZATION, "Bearer token").header(HttpHeaders.IF_MATCH, "\"5-2\"")
+                .bodyValue(new TaskPatchDTO()).exchange()
+                .expectStatus().isEqualTo(412);
+    }
+
+    @Test
+    void patchWithETagOfAnotherTaskNeverMatches() {
+        when(taskService.patchTask(eq(5L), eq(1L), any(TaskPatchDTO.class), eq(-1L))).thenReturn(TaskService.PatchResult.CONFLICT);
+
+        client.patch().uri("/tasks/5").header(HttpHeaders.AUTHORIZATION, "Bearer token").header(HttpHeaders.IF_MATCH, "\"6-3\"")
+                .bodyValue(new TaskPatchDTO()).exchange()
+                .expectStatus().isEqualTo(412);
+    }
+
+    private static Task task(Long id, long version) {
+        Task task = new Task();
+        task.setId(id);
+        task.setUserId(1L);
+        task.setTitle("task");
+        task.setVersion(version);
+        return task;
+    }
+
+    private static TaskSnapshot snapshot(Long id) {
+        return TaskSnapshot.of(task(id, 0));
+    }
+}
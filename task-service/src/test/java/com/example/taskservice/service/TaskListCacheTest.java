@@ -0,0 +1,128 @@
+package com.example.taskservice.service;
+
+import com.example.taskservice.dto.TaskListPage;
+import com.example.taskservice.dto.TaskSnapshot;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TaskListCacheTest {
+
+    private final TaskListCache cache = new TaskListCache(new SimpleMeterRegistry(), true, 100, 1_000_000, Duration.ofMinutes(1));
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void servesCachedPageUntilEvicted() {
+        assertEquals(1, get(1L, 1).version());
+        assertEquals(1, get(1L, 2).version());
+        assertEquals(1, loads.get());
+
+        cache.evict(1L);
+
+        assertEquals(2, get(1L, 2).version());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void evictionOfOneUserKeepsOthers() {
+        get(1L, 1);
+        get(2L, 1);
+
+        cache.evict(1L);
+        get(2L, 2);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void evictionInsideTransactionWaitsForCompletion() {
+        get(1L, 1);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.evict(1L);
+            // До коммита чтения видят прежнюю версию, и она же остаётся в кэше
+            assertEquals(1, get(1L, 2).version());
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(2, get(1L, 2).version());
+    }
+
+    @Test
+    void evictionDuringLoadDoesNotLeaveStalePage() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread reader = Thread.ofPlatform().start(() -> cache.get(1L, () -> {
+            loading.countDown();
+            await(release);
+            return page(1);
+        }));
+        assertTrue(loading.await(1, TimeUnit.SECONDS));
+
+        // Запись коммитится, пока чтение ещё строит страницу по старым данным
+        Thread writer = Thread.ofPlatform().start(() -> cache.evict(1L));
+        release.countDown();
+        reader.join();
+        writer.join();
+
+        assertEquals(2, get(1L, 2).version());
+    }
+
+    @Test
+    void coversOnlyUnfilteredFirstPageWithinPageSize() {
+        assertTrue(cache.covers(null, null, 100));
+        assertFalse(cache.covers(5L, null, 10));
+        assertFalse(cache.covers(null, true, 10));
+        assertFalse(cache.covers(null, null, 101));
+        assertFalse(new TaskListCache(new SimpleMeterRegistry(), false, 100, 1_000_000, Duration.ofMinutes(1))
+                .covers(null, null, 10));
+    }
+
+    @Test
+    void cachedPageIsTrimmedToRequestedLimit() {
+        TaskListPage full = cache.get(1L, () -> new TaskListPage(3, LongStream.rangeClosed(1, 100)
+                .mapToObj(id -> new TaskSnapshot(id, 1L, "task " + id, null, false, 0))
+                .toList()));
+
+        TaskListPage first = full.limit(10);
+
+        assertEquals(3, first.version());
+        assertEquals(10, first.tasks().size());
+        assertEquals(10L, first.tasks().get(9).id());
+    }
+
+    private TaskListPage get(Long userId, long version) {
+        return cache.get(userId, () -> {
+            loads.incrementAndGet();
+            return page(version);
+        });
+    }
+
+    private static TaskListPage page(long version) {
+        return new TaskListPage(version, List.of(new TaskSnapshot(1L, 1L, "task", null, false, version)));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.taskservice.service;
+
+import com.example.taskservice.dto.TaskSnapshot;
+import com.example.taskservice.model.Task;
+import com.example.taskservice.repository.TaskRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TaskSearchIndexTest {
+
+    private static final Long USER = 1L;
+
+    private final TaskSearchIndex index = new TaskSearchIndex(new SimpleMeterRegistry(), true);
+
+    @Test
+    void staleRowDoesNotOverwritePatchMadeDuringLoad() {
+        // Изменение пришло раньше, чем загрузчик дошёл до строки
+        index.patch(USER, 1L, "fresh title", null, null);
+        index.load(snapshot(1L, "stale title", 0));
+
+        assertEquals(Set.of(1L), index.drainPatchedWhileLoading());
+        index.reload(snapshot(1L, "fresh title", 1));
+
+        assertEquals(List.of(1L), ids(index.search(USER, "fresh", 10)));
+        assertTrue(index.search(USER, "stale", 10).isEmpty());
+    }
+
+    @Test
+    void taskRemovedDuringLoadIsNotResurrected() {
+        index.remove(USER, 1L);
+        index.load(snapshot(1L, "deleted task", 0));
+        index.reload(snapshot(1L, "deleted task", 0));
+
+        assertTrue(index.search(USER, "deleted", 10).isEmpty());
+    }
+
+    @Test
+    void reloadKeepsNewerIndexedVersion() {
+        index.index(snapshot(1L, "newer title", 3));
+        index.reload(snapshot(1L, "older title", 2));
+
+        assertEquals(List.of(1L), ids(index.search(USER, "newer", 10)));
+        assertTrue(index.search(USER, "older", 10).isEmpty());
+    }
+
+    @Test
+    void markReadyStopsTrackingChanges() {
+        index.patch(USER, 1L, "title", null, null);
+        index.markReady();
+        index.patch(USER, 2L, "title", null, null);
+
+        assertTrue(index.isReady());
+        assertTrue(index.drainPatchedWhileLoading().isEmpty());
+    }
+
+    @Test
+    void rebuildConvergesWithUpdatesToRowsAlreadyRead() throws InterruptedException {
+        int tasks = 500;
+        Map<Long, Task> db = new ConcurrentHashMap<>();
+        for (long id = 1; id <= tasks; id++) {
+            db.put(id, task(id, "original " + id, 0));
+        }
+        // Каждая строка меняется сразу после того, как загрузчик её прочитал:
+        // чётные задачи удаляются, нечётные переименовываются, как это делает TaskService после commit
+        TaskSearchIndexLoader loader = new TaskSearchIndexLoader(repository(db, id -> {
+            if (id % 2 == 0) {
+                db.remove(id);
+                index.remove(USER, id);
+            } else {
+                db.put(id, task(id, "patched " + id, 1));
+                index.patch(USER, id, "patched " + id, null, null);
+            }
+        }), index, 4, 7);
+
+        loader.rebuild();
+        awaitReady();
+
+        List<TaskSnapshot> patched = index.search(USER, "patched", tasks);
+        assertEquals(tasks / 2, patched.size());
+        assertTrue(patched.stream().allMatch(task -> task.id() % 2 == 1));
+        assertTrue(index.search(USER, "original", tasks).isEmpty());
+    }
+
+    private void awaitReady() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!index.isReady() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(index.isReady());
+    }
+
+    // Чтения возвращают копии строк на момент запроса, как SELECT
+    private static TaskRepository repository(Map<Long, Task> db, LongConsumer afterRead) {
+        TaskRepository repository = mock(TaskRepository.class);
+        when(repository.findMaxId()).thenReturn((long) db.size());
+        when(repository.findByIdGreaterThanAndIdLessThanEqualOrderByIdAsc(anyLong(), anyLong(), any(Limit.class)))
+                .thenAnswer(invocation -> {
+                    long from = invocation.getArgument(0);
+                    long to = invocation.getArgument(1);
+                    int limit = invocation.<Limit>getArgument(2).max();
+                    List<Task> page = new ArrayList<>();
+                    for (long id = from + 1; id <= to && page.size() < limit; id++) {
+                        Task row = db.get(id);
+                        if (row != null) {
+                            page.add(task(id, row.getTitle(), row.getVersion()));
+                        }
+                    }
+                    page.forEach(row -> afterRead.accept(row.getId()));
+                    return page;
+                });
+        when(repository.findAllById(any())).thenAnswer(invocation -> {
+            List<Task> rows = new ArrayList<>();
+            for (Long id : invocation.<Iterable<Long>>getArgument(0)) {
+                Task row = db.get(id);
+                if (row != null) {
+                    rows.add(task(id, row.getTitle(), row.getVersion()));
+                }
+            }
+            return rows;
+        });
+        return repository;
+    }
+
+    private static Task task(Long id, String title, long version) {
+        Task task = new Task();
+        task.setId(id);
+        task.setUserId(USER);
+        task.setTitle(title);
+        task.setVersion(version);
+        return task;
+    }
+
+    private static TaskSnapshot snapshot(Long id, String title, long version) {
+        return TaskSnapshot.of(task(id, title, version));
+    }
+
+    private static List<Long> ids(List<TaskSnapshot> tasks) {
+        return tasks.stream().map(TaskSnapshot::id).toList();
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.taskservice.service;
+
+import com.example.taskservice.dto.TaskPatchDTO;
+import com.example.taskservice.model.Task;
+import com.example.taskservice.repository.TaskListVersionRepository;
+import com.example.taskservice.repository.TaskRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TaskServiceTest {
+
+    @Mock
+    private TaskRepository taskRepository;
+
+    @Mock
+    private TaskListVersionRepository taskListVersionRepository;
+
+    @Mock
+    private TaskListCache taskListCache;
+
+    @Mock
+    private TaskSearchIndex taskSearchIndex;
+
+    @Mock
+    private TaskEventPublisher taskEventPublisher;
+
+    @InjectMocks
+    private TaskService taskService;
+
+    @Test
+    void saveTaskDoesNotOverwriteAnotherUsersTask() {
+        when(taskRepository.findVersionByIdAndUserId(10L, 2L)).thenReturn(Optional.empty());
+
+        Optional<Task> saved = taskService.saveTask(task(10L, 2L), null);
+
+        assertTrue(saved.isEmpty());
+        verify(taskRepository, never()).saveAndFlush(any());
+        verifyNoInteractions(taskListVersionRepository, taskListCache, taskSearchIndex, taskEventPublisher);
+    }
+
+    @Test
+    void saveTaskUpdatesOwnTaskAtCurrentVersion() {
+        when(taskRepository.findVersionByIdAndUserId(10L, 1L)).thenReturn(Optional.of(3L));
+        when(taskRepository.saveAndFlush(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Task saved = taskService.saveTask(task(10L, 1L), null).orElseThrow();
+
+        assertEquals(3L, saved.getVersion());
+        verify(taskListVersionRepository).increment(1L);
+        verify(taskListCache).evict(1L);
+    }
+
+    @Test
+    void saveTaskKeepsExpectedVersionForOptimisticCheck() {
+        when(taskRepository.findVersionByIdAndUserId(10L, 1L)).thenReturn(Optional.of(5L));
+        when(taskRepository.saveAndFlush(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Task saved = taskService.saveTask(task(10L, 1L), 4L).orElseThrow();
+
+        assertEquals(4L, saved.getVersion());
+    }
+
+    @Test
+    void saveTaskCreatesWithoutOwnershipLookup() {
+        when(taskRepository.saveAndFlush(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        assertTrue(taskService.saveTask(task(null, 1L), null).isPresent());
+        verify(taskRepository, never()).findVersionByIdAndUserId(anyLong(), anyLong());
+    }
+
+    private static Task task(Long id, Long userId) {
+        Task task = new Task();
+        task.setId(id);
+        task.setUserId(userId);
+        task.setTitle("title");
+        return task;
+    }
+
+    @Test
+    void patchBumpsListVersionOnlyWhenRowChanged() {
+        TaskPatchDTO patch = new TaskPatchDTO();
+        patch.setCompleted(true);
+        when(taskRepository.patchByIdAndUserId(10L, 1L, null, null, true, null)).thenReturn(1);
+        when(taskRepository.patchByIdAndUserId(11L, 1L, null, null, true, null)).thenReturn(0);
+
+        assertEquals(TaskService.PatchResult.UPDATED, taskService.patchTask(10L, 1L, patch, null));
+        assertEquals(TaskService.PatchResult.NOT_FOUND, taskService.patchTask(11L, 1L, patch, null));
+
+        verify(taskListVersionRepository, times(1)).increment(1L);
+    }
+
+    @Test
+    void deleteBumpsListVersionOnlyWhenRowDeleted() {
+        when(taskRepository.deleteByIdAndUserId(10L, 1L)).thenReturn(1);
+
+        assertTrue(taskService.deleteTask(10L, 1L));
+        assertFalse(taskService.deleteTask(11L, 1L));
+
+        verify(taskListVersionRepository, times(1)).increment(1L);
+    }
+
+    @Test
+    void listVersionDefaultsToZeroBeforeFirstWrite() {
+        when(taskListVersionRepository.findVersion(1L)).thenReturn(Optional.empty());
+
+        assertEquals(0L, taskService.getListVersion(1L));
+    }
+}
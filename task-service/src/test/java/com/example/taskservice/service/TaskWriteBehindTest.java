@@ -0,0 +1,159 @@
+package com.example.taskservice.service;
+
+import com.example.taskservice.model.Task;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TaskWriteBehindTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final TaskService taskService = mock(TaskService.class);
+    // Группа переиспользуется писателем после commit, поэтому сохраняются копии
+    private final List<List<String>> commits = new CopyOnWriteArrayList<>();
+    private TaskWriteBehind writeBehind;
+
+    @AfterEach
+    void stop() {
+        if (writeBehind != null) {
+            writeBehind.stop();
+        }
+    }
+
+    @Test
+    void groupsQueuedTasksUpToMaxBatchSize() {
+        recordCommits();
+        writeBehind = start(100, 2, Duration.ofSeconds(1));
+
+        for (int i = 1; i <= 5; i++) {
+            assertTrue(writeBehind.offer(task("t" + i)));
+        }
+        writeBehind.stop();
+
+        assertEquals(List.of(List.of("t1", "t2"), List.of("t3", "t4"), List.of("t5")), commits);
+    }
+
+    @Test
+    void commitsPartialGroupAfterMaxDelay() {
+        recordCommits();
+        writeBehind = start(100, 500, Duration.ofMillis(20));
+
+        writeBehind.offer(task("t1"));
+
+        verify(taskService, timeout(1_000)).saveNewTasks(anyList());
+        assertTrue(writeBehind.isRunning());
+        assertEquals(List.of(List.of("t1")), commits);
+    }
+
+    @Test
+    void failedGroupIsRetriedTaskByTask() {
+        List<Long> idsOnEntry = new CopyOnWriteArrayList<>();
+        when(taskService.saveNewTasks(anyList())).thenAnswer(invocation -> {
+            List<Task> batch = invocation.getArgument(0);
+            batch.forEach(task -> idsOnEntry.add(task.getId()));
+            // Как saveAll до отката: id уже назначены
+            batch.forEach(task -> task.setId(42L));
+            if (batch.stream().anyMatch(task -> task.getTitle().equals("bad"))) {
+                throw new IllegalStateException("constraint violation");
+            }
+            commits.add(titles(batch));
+            return batch;
+        });
+        writeBehind = start(100, 3, Duration.ofSeconds(1));
+        List<Task> tasks = List.of(task("t1"), task("bad"), task("t3"));
+
+        tasks.forEach(writeBehind::offer);
+        writeBehind.stop();
+
+        assertEquals(List.of(List.of("t1"), List.of("t3")), commits);
+        // id из откатившейся группы сбрасываются перед повтором
+        assertTrue(idsOnEntry.stream().allMatch(id -> id == null));
+        assertEquals(1.0, meterRegistry.get("task.write-behind.failed").counter().count());
+    }
+
+    @Test
+    void stopDrainsQueueAndRejectsNewTasks() {
+        when(taskService.saveNewTasks(anyList())).thenAnswer(invocation -> {
+            Thread.sleep(20);
+            commits.add(titles(invocation.getArgument(0)));
+            return invocation.getArgument(0);
+        });
+        writeBehind = start(100, 1, Duration.ZERO);
+        for (int i = 1; i <= 10; i++) {
+            writeBehind.offer(task("t" + i));
+        }
+
+        writeBehind.stop();
+
+        assertEquals(10, commits.size());
+        assertFalse(writeBehind.offer(task("late")));
+    }
+
+    @Test
+    void rejectsWhenQueueIsFull() throws InterruptedException {
+        CountDownLatch committing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(taskService.saveNewTasks(anyList())).thenAnswer(invocation -> {
+            committing.countDown();
+            release.await();
+            return invocation.getArgument(0);
+        });
+        writeBehind = start(1, 1, Duration.ZERO);
+
+        assertTrue(writeBehind.offer(task("t1")));
+        assertTrue(committing.await(1, TimeUnit.SECONDS));
+        assertTrue(writeBehind.offer(task("t2")));
+        assertFalse(writeBehind.offer(task("t3")));
+        release.countDown();
+    }
+
+    @Test
+    void disabledWriteBehindAcceptsNothing() {
+        writeBehind = new TaskWriteBehind(taskService, meterRegistry, false, 100, 10, Duration.ZERO, Duration.ofSeconds(5));
+        writeBehind.start();
+
+        assertFalse(writeBehind.isRunning());
+        assertFalse(writeBehind.offer(task("t1")));
+    }
+
+    private TaskWriteBehind start(int capacity, int maxBatchSize, Duration maxDelay) {
+        TaskWriteBehind started = new TaskWriteBehind(taskService, meterRegistry, true, capacity, maxBatchSize,
+                maxDelay, Duration.ofSeconds(5));
+        started.start();
+        return started;
+    }
+
+    private void recordCommits() {
+        when(taskService.saveNewTasks(anyList())).thenAnswer(invocation -> {
+            commits.add(titles(invocation.getArgument(0)));
+            return invocation.getArgument(0);
+        });
+    }
+
+    private static List<String> titles(List<Task> batch) {
+        return new ArrayList<>(batch.stream().map(Task::getTitle).toList());
+    }
+
+    private static Task task(String title) {
+        Task task = new Task();
+        task.setTitle(title);
+        task.setUserId(1L);
+        return task;
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.taskservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class UserIdResolverTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<ClientRequest> requests = new CopyOnWriteArrayList<>();
+    private final AtomicReference<Mono<ClientResponse>> nextResponse = new AtomicReference<>(found(7L));
+    private final UserIdResolver resolver = new UserIdResolver(
+            WebClient.builder().exchangeFunction(request -> {
+                requests.add(request);
+                return nextResponse.get();
+            }).build(),
+            meterRegistry, 100, Duration.ofMinutes(10), Duration.ofMillis(50));
+
+    @Test
+    void concurrentMissesShareOneRequest() {
+        Sinks.One<ClientResponse> userService = Sinks.one();
+        nextResponse.set(userService.asMono());
+        AtomicReference<Long> first = new AtomicReference<>();
+        AtomicReference<Long> second = new AtomicReference<>();
+
+        resolver.resolve("bob", "token").subscribe(first::set);
+        resolver.resolve("bob", "token").subscribe(second::set);
+        userService.tryEmitValue(found(7L).block());
+
+        assertEquals(1, requests.size());
+        assertEquals(7L, first.get());
+        assertEquals(7L, second.get());
+        assertEquals(1.0, lookups("miss"));
+        assertEquals(1.0, lookups("coalesced"));
+    }
+
+    @Test
+    void resolvedIdIsCachedAndTokenForwarded() {
+        assertEquals(7L, resolver.resolve("bob", "token").block());
+        assertEquals(7L, resolver.resolve("bob", "other").block());
+
+        assertEquals(1, requests.size());
+        assertEquals("Bearer token", requests.get(0).headers().getFirst(HttpHeaders.AUTHORIZATION));
+        assertEquals("/users/bob", requests.get(0).url().getPath());
+        assertEquals(1.0, lookups("hit"));
+    }
+
+    @Test
+    void unknownUserIsCachedForNegativeTtlOnly() throws InterruptedException {
+        nextResponse.set(Mono.just(ClientResponse.create(HttpStatus.NOT_FOUND).build()));
+
+        assertNull(resolver.resolve("ghost", "token").block());
+        assertNull(resolver.resolve("ghost", "token").block());
+        assertEquals(1, requests.size());
+
+        Thread.sleep(100);
+        nextResponse.set(found(9L));
+
+        assertEquals(9L, resolver.resolve("ghost", "token").block());
+        assertEquals(2, requests.size());
+    }
+
+    @Test
+    void errorsAreNotCached() {
+        nextResponse.set(Mono.just(ClientResponse.create(HttpStatus.SERVICE_UNAVAILABLE).build()));
+
+        assertThrows(WebClientResponseException.class, () -> resolver.resolve("bob", "token").block());
+
+        nextResponse.set(found(7L));
+        assertEquals(7L, resolver.resolve("bob", "token").block());
+        assertEquals(2, requests.size());
+    }
+
+    private double lookups(String result) {
+        return meterRegistry.get("task.user.id.lookups").tag("result", result).counter().count();
+    }
+
+    private static Mono<ClientResponse> found(Long id) {
+        return Mono.just(ClientResponse.create(HttpStatus.OK)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .body("{\"id\":" + id + ",\"username\":\"bob\"}")
+                .build());
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.userservice.config;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Общие неизменяемые экземпляры GrantedAuthority: набор ролей мал,
+ * поэтому объект на каждую аутентификацию не создаётся.
+ */
+public final class Authorities {
+
+    private static final ConcurrentMap<String, GrantedAuthority> INTERNED = new ConcurrentHashMap<>();
+
+    private Authorities() {
+    }
+
+    public static GrantedAuthority of(String role) {
+        return INTERNED.computeIfAbsent(role, SimpleGrantedAuthority::new);
+    }
+}
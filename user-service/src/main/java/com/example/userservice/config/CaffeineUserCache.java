@@ -0,0 +1,57 @@
+package com.example.userservice.config;
+
+import com.example.userservice.model.AuthenticatedUser;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Кэш UserDetails для DaoAuthenticationProvider. ProviderManager стирает
+ * пароль у principal после входа, поэтому в кэше хранится и из кэша
+ * выдаётся собственная копия.
+ */
+@Component
+public class CaffeineUserCache implements UserCache {
+
+    private final Cache<String, AuthenticatedUser> cache;
+
+    public CaffeineUserCache(MeterRegistry meterRegistry,
+                             @Value("${users.details-cache.max-size:10000}") long maxSize,
+                             @Value("${users.details-cache.ttl:5m}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "user.details");
+    }
+
+    @Override
+    public UserDetails getUserFromCache(String username) {
+        AuthenticatedUser user = cache.getIfPresent(username);
+        return user != null ? copy(user) : null;
+    }
+
+    @Override
+    public void putUserInCache(UserDetails user) {
+        if (user instanceof AuthenticatedUser authenticatedUser) {
+            cache.put(user.getUsername(), copy(authenticatedUser));
+        }
+    }
+
+    @Override
+    public void removeUserFromCache(String username) {
+        cache.invalidate(username);
+    }
+
+    private static AuthenticatedUser copy(AuthenticatedUser user) {
+        return new AuthenticatedUser(user.getId(), user.getUsername(), user.getPassword(), user.getAuthorities());
+    }
+}
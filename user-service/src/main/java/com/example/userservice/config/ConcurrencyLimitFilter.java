@@ -0,0 +1,80 @@
+package com.example.userservice.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * На виртуальных потоках пул Tomcat больше не ограничивает число
+ * одновременных запросов, поэтому предел задаётся семафором. По умолчанию
+ * он равен пулу Hikari: лишние запросы быстро получают 503, а не ждут
+ * соединения. Виртуальные потоки не закрепляются за несущими только с
+ * драйвером Connector/J 9.x.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private final Semaphore permits;
+    private final long acquireTimeoutNanos;
+    private final Counter rejected;
+
+    public ConcurrencyLimitFilter(MeterRegistry meterRegistry,
+                                  @Value("${users.concurrency.max-in-flight:${users.db.pool-size:20}}") int maxInFlight,
+                                  @Value("${users.concurrency.acquire-timeout:100ms}") Duration acquireTimeout) {
+        this.permits = new Semaphore(maxInFlight);
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+        Gauge.builder("users.concurrency.in.flight", permits, p -> maxInFlight - p.availablePermits())
+                .description("Requests currently holding a concurrency permit")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("users.concurrency.rejected")
+                .description("Requests rejected because the concurrency limit was reached")
+                .register(meterRegistry);
+    }
+
+    // Health checks и метрики не должны отказывать под нагрузкой
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().startsWith("/actuator");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            rejected.increment();
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            return;
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            permits.release();
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.userservice.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+/**
+ * Подписанные заголовки с личностью пользователя, которые gateway добавляет
+ * после однократной проверки JWT. HMAC-SHA256 покрывает id, имя, роли и
+ * время выпуска; сервисы с identity.trust-headers=true принимают их вместо
+ * повторного разбора токена.
+ */
+@Component
+public class IdentityHeaders {
+
+    public static final String USER_ID = "X-User-Id";
+    public static final String USER_NAME = "X-User-Name";
+    public static final String USER_ROLES = "X-User-Roles";
+    public static final String SIGNATURE = "X-User-Signature";
+    public static final List<String> ALL = List.of(USER_ID, USER_NAME, USER_ROLES, SIGNATURE);
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final Mac prototype;
+    private final long maxAgeMillis;
+    private final boolean trusted;
+
+    public IdentityHeaders(@Value("${identity.secret:your-internal-identity-secret}") String secret,
+                           @Value("${identity.max-age:60s}") Duration maxAge,
+                           @Value("${identity.trust-headers:false}") boolean trusted) {
+        try {
+            this.prototype = Mac.getInstance(ALGORITHM);
+            this.prototype.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+        this.maxAgeMillis = maxAge.toMillis();
+        this.trusted = trusted;
+    }
+
+    public boolean isTrusted() {
+        return trusted;
+    }
+
+    public static void strip(HttpHeaders headers) {
+        ALL.forEach(headers::remove);
+    }
+
+    public void write(HttpHeaders headers, JwtPrincipal principal) {
+        strip(headers);
+        String userId = principal.userId() != null ? principal.userId().toString() : "";
+        String username = URLEncoder.encode(principal.username(), StandardCharsets.UTF_8);
+        String roles = String.join(",", principal.roles());
+        long issuedAt = System.currentTimeMillis();
+        headers.set(USER_ID, userId);
+        headers.set(USER_NAME, username);
+        headers.set(USER_ROLES, roles);
+        headers.set(SIGNATURE, issuedAt + "." + sign(userId, username, roles, issuedAt));
+    }
+
+    /**
+     * Возвращает личность из заголовков или null, если их нет, подпись
+     * неверна или устарела.
+     */
+    public JwtPrincipal read(UnaryOperator<String> header) {
+        String signature = header.apply(SIGNATURE);
+        String username = header.apply(USER_NAME);
+        if (signature == null || username == null) {
+            return null;
+        }
+        String userId = valueOrEmpty(header.apply(USER_ID));
+        String roles = valueOrEmpty(header.apply(USER_ROLES));
+        int dot = signature.indexOf('.');
+        if (dot <= 0) {
+            return null;
+        }
+        long issuedAt;
+        try {
+            issuedAt = Long.parseLong(signature.substring(0, dot));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (Math.abs(System.currentTimeMillis() - issuedAt) > maxAgeMillis) {
+            return null;
+        }
+        byte[] expected = sign(userId, username, roles, issuedAt).getBytes(StandardCharsets.US_ASCII);
+        byte[] actual = signature.substring(dot + 1).getBytes(StandardCharsets.US_ASCII);
+        if (!MessageDigest.isEqual(expected, actual)) {
+            return null;
+        }
+        try {
+            return new JwtPrincipal(
+                    URLDecoder.decode(username, StandardCharsets.UTF_8),
+                    userId.isEmpty() ? null : Long.valueOf(userId),
+                    roles.isEmpty() ? List.of() : List.of(roles.split(",")));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private String sign(String userId, String username, String roles, long issuedAt) {
+        String payload = userId + "\n" + username + "\n" + roles + "\n" + issuedAt;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(newMac().doFinal(payload.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    // Mac не потокобезопасен; копия уже инициализированного экземпляра дешевле Mac.getInstance
+    private Mac newMac() {
+        try {
+            return (Mac) prototype.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String valueOrEmpty(String value) {
+        return value != null ? value : "";
+    }
+}
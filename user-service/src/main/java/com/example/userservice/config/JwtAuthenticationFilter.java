@@ -2,20 +2,24 @@ package com.example.userservice.config;
 
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.filter.OncePerRequestFilter;
-import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jwts;
+import org.springframework.security.core.GrantedAuthority;
 
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import org.springframework.beans.factory.annotation.Value;
+import java.util.List;
 
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
-    @Value("${jwt.secret}")
-    private String jwtSecret;
+    private final JwtVerifier jwtVerifier;
+    private final IdentityHeaders identityHeaders;
+
+    public JwtAuthenticationFilter(JwtVerifier jwtVerifier, IdentityHeaders identityHeaders) {
+        this.jwtVerifier = jwtVerifier;
+        this.identityHeaders = identityHeaders;
+    }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
@@ -32,6 +36,16 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             return;
         }
 
+        // JWT уже проверен gateway; подписанные заголовки избавляют от повторного разбора
+        if (identityHeaders.isTrusted()) {
+            JwtPrincipal principal = identityHeaders.read(request::getHeader);
+            if (principal != null) {
+                authenticate(request, principal);
+                chain.doFilter(request, response);
+                return;
+            }
+        }
+
         String header = request.getHeader("Authorization");
         System.out.println("Authorization header: " + header);
         if (header == null || !header.startsWith("Bearer ")) {
@@ -44,16 +58,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             String token = header.replace("Bearer ", "");
             System.out.println("JWT token: " + token);
 
-            Claims claims = Jwts.parser()
-                    .setSigningKey(jwtSecret.getBytes())
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
-            String username = claims.getSubject();
-
-            SecurityContextHolder.getContext().setAuthentication(
-                    new org.springframework.security.authentication.UsernamePasswordAuthenticationToken(
-                            username, null, null));
+            authenticate(request, jwtVerifier.verify(token));
             chain.doFilter(request, response);
         } catch (Exception e) {
             System.out.println("Invalid JWT token: " + e.getMessage());
@@ -61,4 +66,15 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             return;
         }
     }
-}
\ No newline at end of file
+
+    private static void authenticate(HttpServletRequest request, JwtPrincipal principal) {
+        request.setAttribute(JwtVerifier.PRINCIPAL_ATTRIBUTE, principal);
+        List<GrantedAuthority> authorities = principal.roles().stream()
+                .map(Authorities::of)
+                .toList();
+
+        SecurityContextHolder.getContext().setAuthentication(
+                new org.springframework.security.authentication.UsernamePasswordAuthenticationToken(
+                        principal, null, authorities));
+    }
+}
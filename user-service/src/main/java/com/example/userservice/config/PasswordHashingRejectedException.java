@@ -0,0 +1,11 @@
+package com.example.userservice.config;
+
+/**
+ * Очередь хэширования паролей заполнена; запрос нужно отклонить с 503.
+ */
+public class PasswordHashingRejectedException extends RuntimeException {
+
+    public PasswordHashingRejectedException(String message) {
+        super(message);
+    }
+}
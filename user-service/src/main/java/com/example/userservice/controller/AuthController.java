@@ -1,19 +1,29 @@
 package com.example.userservice.controller;
 
+import com.example.userservice.config.JwtVerifier;
+import com.example.userservice.config.PasswordHashingRejectedException;
+import com.example.userservice.dto.RegistrationRequest;
+import com.example.userservice.dto.UserDTO;
+import com.example.userservice.model.AuthenticatedUser;
 import com.example.userservice.model.User;
+import com.example.userservice.service.UserAlreadyExistsException;
 import com.example.userservice.service.UserService;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 
 @RestController
 @RequestMapping({"/auth", "/api/auth"})
@@ -31,15 +41,23 @@ public class AuthController {
     }
 
     @PostMapping("/register")
-    public ResponseEntity<?> register(@RequestBody User user) {
-        System.out.println("Received registration request for user: " + user.getUsername());
+    public ResponseEntity<?> register(@RequestBody RegistrationRequest request) {
+        System.out.println("Received registration request for user: " + request.getUsername());
         try {
-            User savedUser = userService.saveUser(user);
+            User savedUser = userService.saveUser(request);
             System.out.println("User registered successfully: " + savedUser.getUsername());
-            return ResponseEntity.ok(savedUser);
+            return ResponseEntity.ok(UserDTO.from(savedUser));
+        } catch (UserAlreadyExistsException e) {
+            System.err.println("Registration error: " + e.getMessage());
+            return ResponseEntity.status(409).body("Registration failed: " + e.getMessage());
         } catch (IllegalArgumentException e) {
             System.err.println("Registration error: " + e.getMessage());
             return ResponseEntity.status(400).body("Registration failed: " + e.getMessage());
+        } catch (DataIntegrityViolationException e) {
+            System.err.println("Registration error: " + e.getMostSpecificCause().getMessage());
+            return ResponseEntity.status(400).body("Registration failed: invalid user data");
+        } catch (PasswordHashingRejectedException e) {
+            return overloaded();
         } catch (Exception e) {
             System.err.println("Unexpected error during registration: " + e.getMessage());
             e.printStackTrace();
@@ -57,18 +75,32 @@ public class AuthController {
             );
             System.out.println("User authenticated successfully: " + user.getUsername());
 
+            AuthenticatedUser principal = (AuthenticatedUser) authentication.getPrincipal();
+            List<String> roles = principal.getAuthorities().stream()
+                    .map(GrantedAuthority::getAuthority)
+                    .toList();
             String token = Jwts.builder()
-                    .setSubject(user.getUsername())
+                    .setSubject(principal.getUsername())
+                    .claim(JwtVerifier.USER_ID_CLAIM, principal.getId())
+                    .claim(JwtVerifier.ROLES_CLAIM, roles)
                     .setExpiration(new Date(System.currentTimeMillis() + 86400000))
                     .signWith(Keys.hmacShaKeyFor(jwtSecret.getBytes()), SignatureAlgorithm.HS512)
                     .compact();
             return ResponseEntity.ok(new HashMap<String, String>() {{
                 put("token", token);
             }});
+        } catch (PasswordHashingRejectedException e) {
+            return overloaded();
         } catch (Exception e) {
             System.err.println("Error during login: " + e.getMessage());
             e.printStackTrace();
             return ResponseEntity.status(401).body("Login failed: " + e.getMessage());
         }
     }
+
+    private static ResponseEntity<String> overloaded() {
+        return ResponseEntity.status(503)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body("Service is busy, try again later");
+    }
 }
@@ -1,34 +1,129 @@
 package com.example.userservice.controller;
 
-import com.example.userservice.model.User;
+import com.example.userservice.dto.UserDTO;
+import com.example.userservice.dto.UserLookupRequest;
 import com.example.userservice.service.UserService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @RestController
 @RequestMapping("/users")
 public class UserController {
 
+    static final String NEXT_AFTER_ID_HEADER = "X-Next-After-Id";
+
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${users.lookup.max-size:1000}")
+    private int maxLookupSize;
+
+    @Value("${users.page.default-size:100}")
+    private int defaultPageSize;
+
+    @Value("${users.page.max-size:1000}")
+    private int maxPageSize;
+
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<User>> getUsers() {
-        return ResponseEntity.ok(userService.getAllUsers());
+    public ResponseEntity<?> getUsers(@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                      @RequestParam(required = false) Long afterId,
+                                      @RequestParam(required = false) Integer limit,
+                                      @RequestParam(defaultValue = "false") boolean stream) {
+        boolean ndjson = accepts(accept, MediaType.APPLICATION_NDJSON);
+        if (ndjson || stream) {
+            return ResponseEntity.ok()
+                    .contentType(ndjson ? MediaType.APPLICATION_NDJSON : MediaType.APPLICATION_JSON)
+                    .body(streamUsers(ndjson));
+        }
+
+        int pageSize = limit != null ? Math.max(1, Math.min(limit, maxPageSize)) : defaultPageSize;
+        List<UserDTO> users = userService.getUsersPage(afterId, pageSize).stream()
+                .map(UserDTO::from)
+                .toList();
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (users.size() == pageSize) {
+            response.header(NEXT_AFTER_ID_HEADER, String.valueOf(users.get(users.size() - 1).getId()));
+        }
+        return response.body(users);
+    }
+
+    // Вся таблица одним курсором: NDJSON построчно либо один JSON-массив,
+    // который пишется по мере чтения строк
+    private StreamingResponseBody streamUsers(boolean ndjson) {
+        ObjectWriter writer = objectMapper.writerFor(UserDTO.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        return output -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(output)) {
+                if (ndjson) {
+                    generator.setRootValueSeparator(null);
+                } else {
+                    generator.writeStartArray();
+                }
+                userService.forEachUser(user -> {
+                    try {
+                        writer.writeValue(generator, UserDTO.from(user));
+                        if (ndjson) {
+                            generator.writeRaw('\n');
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                if (!ndjson) {
+                    generator.writeEndArray();
+                }
+            }
+        };
+    }
+
+    private static boolean accepts(String accept, MediaType mediaType) {
+        if (accept == null) {
+            return false;
+        }
+        try {
+            return MediaType.parseMediaTypes(accept).stream().anyMatch(mediaType::equalsTypeAndSubtype);
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
     }
 
     @GetMapping("/{username}")
-    public ResponseEntity<User> getUser(@PathVariable String username) {
-        User user = userService.getUserByUsername(username);
-        if (user == null) {
-            return ResponseEntity.notFound().build();
+    public ResponseEntity<UserDTO> getUser(@PathVariable String username) {
+        return userService.getUserSummary(username)
+                .map(UserDTO::from)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @PostMapping("/lookup")
+    public ResponseEntity<List<UserDTO>> lookupUsers(@RequestBody UserLookupRequest request) {
+        int size = (request.getUsernames() != null ? request.getUsernames().size() : 0)
+                + (request.getIds() != null ? request.getIds().size() : 0);
+        if (size > maxLookupSize) {
+            return ResponseEntity.status(413).build();
         }
-        return ResponseEntity.ok(user);
+        return ResponseEntity.ok(userService.lookupUsers(request.getUsernames(), request.getIds()).stream()
+                .map(UserDTO::from)
+                .toList());
     }
 
     @DeleteMapping("/{id}")
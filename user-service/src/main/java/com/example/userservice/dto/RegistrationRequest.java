@@ -0,0 +1,33 @@
+package com.example.userservice.dto;
+
+// Тело POST /auth/register: id и роли клиент не задаёт
+public class RegistrationRequest {
+    private String username;
+    private String password;
+    private String email;
+
+    // Геттеры и сеттеры
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.userservice.dto;
+
+import java.util.List;
+
+public class UserLookupRequest {
+    private List<String> usernames;
+    private List<Long> ids;
+
+    // Геттеры и сеттеры
+    public List<String> getUsernames() {
+        return usernames;
+    }
+
+    public void setUsernames(List<String> usernames) {
+        this.usernames = usernames;
+    }
+
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<Long> ids) {
+        this.ids = ids;
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.userservice.model;
+
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+
+public class AuthenticatedUser extends org.springframework.security.core.userdetails.User {
+
+    private final Long id;
+
+    public AuthenticatedUser(Long id, String username, String password,
+                             Collection<? extends GrantedAuthority> authorities) {
+        super(username, password, authorities);
+        this.id = id;
+    }
+
+    public Long getId() { return id; }
+}
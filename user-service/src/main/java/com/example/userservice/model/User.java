@@ -3,13 +3,17 @@ package com.example.userservice.model;
 import jakarta.persistence.*;
 
 @Entity
-@Table(name = "user")
+@Table(name = "user",
+        uniqueConstraints = @UniqueConstraint(name = User.USERNAME_CONSTRAINT, columnNames = "username"),
+        indexes = @Index(name = "idx_user_username_email", columnList = "username, email"))
 public class User {
+    public static final String USERNAME_CONSTRAINT = "uk_user_username";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(unique = true, nullable = false)
+    @Column(nullable = false)
     private String username;
 
     private String password;
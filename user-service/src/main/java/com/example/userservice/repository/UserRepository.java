@@ -1,9 +1,35 @@
 package com.example.userservice.repository;
 
 import com.example.userservice.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
+
+    // Читаются из индекса (username, email), в который InnoDB добавляет id
+    Optional<UserSummary> findSummaryByUsername(String username);
+
+    Optional<UserSummary> findSummaryById(Long id);
+
+    List<UserSummary> findSummariesByUsernameIn(Collection<String> usernames);
+
+    List<UserSummary> findSummariesByIdIn(Collection<Long> ids);
+
+    List<UserSummary> findSummariesByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+
+    // Курсор только вперёд; с useCursorFetch=true MySQL отдаёт строки порциями
+    // по fetchSize, а не всю выборку сразу
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select u.id as id, u.username as username, u.email as email from User u order by u.id")
+    Stream<UserSummary> streamSummaries();
 }
@@ -0,0 +1,8 @@
+package com.example.userservice.repository;
+
+// Закрытая проекция: Spring Data выбирает только эти колонки
+public interface UserSummary {
+    Long getId();
+    String getUsername();
+    String getEmail();
+}
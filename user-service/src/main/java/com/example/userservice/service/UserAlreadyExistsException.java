@@ -0,0 +1,8 @@
+package com.example.userservice.service;
+
+public class UserAlreadyExistsException extends RuntimeException {
+
+    public UserAlreadyExistsException(String username, Throwable cause) {
+        super("User with username " + username + " already exists", cause);
+    }
+}
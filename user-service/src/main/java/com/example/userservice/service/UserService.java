@@ -1,26 +1,45 @@
 package com.example.userservice.service;
 
+import com.example.userservice.config.Authorities;
+import com.example.userservice.dto.RegistrationRequest;
+import com.example.userservice.model.AuthenticatedUser;
 import com.example.userservice.model.User;
 import com.example.userservice.repository.UserRepository;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import com.example.userservice.repository.UserSummary;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.security.core.userdetails.UserCache;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class UserService implements UserDetailsService {
 
+    private static final int MYSQL_DUPLICATE_KEY = 1062;
+
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final UserCache userCache;
 
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, UserCache userCache) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.userCache = userCache;
     }
 
     @Override
@@ -32,47 +51,122 @@ public class UserService implements UserDetailsService {
                     return new UsernameNotFoundException("User not found: " + username);
                 });
         System.out.println("User found: " + user.getUsername() + ", roles: " + user.getRoles());
-        return new org.springframework.security.core.userdetails.User(
+        return new AuthenticatedUser(
+                user.getId(),
                 user.getUsername(),
                 user.getPassword(),
-                Collections.singletonList(new SimpleGrantedAuthority(user.getRoles()))
+                Collections.singletonList(Authorities.of(user.getRoles()))
         );
     }
 
-    public User saveUser(User user) {
-        System.out.println("Saving user: " + user.getUsername());
-        if (userRepository.findByUsername(user.getUsername()).isPresent()) {
-            System.err.println("User already exists: " + user.getUsername());
-            throw new IllegalArgumentException("User with username " + user.getUsername() + " already exists");
+    // Один INSERT: занятое имя обнаруживает уникальный индекс uk_user_username,
+    // а не предварительный SELECT, который к тому же не защищал от гонки.
+    // Остальные нарушения целостности (слишком длинное поле и т.п.) пробрасываются.
+    // Сущность всегда новая: id из запроса превратил бы INSERT в merge чужой записи
+    public User saveUser(RegistrationRequest request) {
+        System.out.println("Saving user: " + request.getUsername());
+        if (request.getUsername() == null || request.getUsername().isBlank()) {
+            throw new IllegalArgumentException("Username must not be empty");
         }
-        user.setPassword(passwordEncoder.encode(user.getPassword()));
+        User user = new User();
+        user.setUsername(request.getUsername());
+        user.setEmail(request.getEmail());
+        user.setPassword(passwordEncoder.encode(request.getPassword()));
         user.setRoles("ROLE_USER");
-        User savedUser = userRepository.save(user);
-        System.out.println("User saved: " + savedUser.getUsername());
-        return savedUser;
+        try {
+            User savedUser = userRepository.saveAndFlush(user);
+            userCache.removeUserFromCache(savedUser.getUsername());
+            System.out.println("User saved: " + savedUser.getUsername());
+            return savedUser;
+        } catch (DataIntegrityViolationException e) {
+            if (!isDuplicateUsername(e, user.getUsername())) {
+                throw e;
+            }
+            System.err.println("User already exists: " + user.getUsername());
+            throw new UserAlreadyExistsException(user.getUsername(), e);
+        }
+    }
+
+    // Занятым считается только имя, нарушившее uk_user_username. В базах, созданных
+    // до этого индекса, уникальность username держит ключ с именем, выбранным
+    // Hibernate, — для него проверяем, что нарушен уникальный ключ и имя уже занято
+    private boolean isDuplicateUsername(DataIntegrityViolationException e, String username) {
+        ConstraintViolationException violation = findConstraintViolation(e);
+        if (violation == null) {
+            return false;
+        }
+        String constraint = violation.getConstraintName();
+        if (constraint != null) {
+            // MySQL 8 сообщает имя ключа вместе с таблицей: user.uk_user_username
+            constraint = constraint.substring(constraint.lastIndexOf('.') + 1);
+            if (User.USERNAME_CONSTRAINT.equalsIgnoreCase(constraint)) {
+                return true;
+            }
+        }
+        boolean uniqueKey = violation.getKind() == ConstraintViolationException.ConstraintKind.UNIQUE
+                || violation.getErrorCode() == MYSQL_DUPLICATE_KEY;
+        return uniqueKey && userRepository.findSummaryByUsername(username).isPresent();
     }
 
-    public List<User> getAllUsers() {
-        System.out.println("Fetching all users");
-        return userRepository.findAll();
+    private static ConstraintViolationException findConstraintViolation(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                return violation;
+            }
+        }
+        return null;
     }
 
-    public User getUserByUsername(String username) {
-        System.out.println("Fetching user by username: " + username);
-        return userRepository.findByUsername(username)
-                .orElseThrow(() -> {
-                    System.err.println("User not found: " + username);
-                    return new IllegalArgumentException("User with username " + username + " not found");
-                });
+    public List<UserSummary> getUsersPage(Long afterId, int limit) {
+        System.out.println("Fetching users after id: " + afterId);
+        return userRepository.findSummariesByIdGreaterThanOrderByIdAsc(afterId != null ? afterId : 0L, Limit.of(limit));
+    }
+
+    // Соединение и курсор держатся, пока все строки не переданы action;
+    // проекции не попадают в persistence context, поэтому память не растёт
+    @Transactional(readOnly = true)
+    public void forEachUser(Consumer<UserSummary> action) {
+        System.out.println("Streaming all users");
+        try (Stream<UserSummary> users = userRepository.streamSummaries()) {
+            users.forEach(action);
+        }
+    }
+
+    public Optional<UserSummary> getUserSummary(String username) {
+        System.out.println("Fetching user summary by username: " + username);
+        return userRepository.findSummaryByUsername(username);
+    }
+
+    // Не больше двух запросов с IN независимо от числа имён и id
+    public List<UserSummary> lookupUsers(Collection<String> usernames, Collection<Long> ids) {
+        List<UserSummary> result = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        if (usernames != null && !usernames.isEmpty()) {
+            for (UserSummary user : userRepository.findSummariesByUsernameIn(new HashSet<>(usernames))) {
+                if (seen.add(user.getId())) {
+                    result.add(user);
+                }
+            }
+        }
+        if (ids != null && !ids.isEmpty()) {
+            for (UserSummary user : userRepository.findSummariesByIdIn(new HashSet<>(ids))) {
+                if (seen.add(user.getId())) {
+                    result.add(user);
+                }
+            }
+        }
+        return result;
     }
 
     public void deleteUser(Long id) {
         System.out.println("Deleting user with id: " + id);
-        if (!userRepository.existsById(id)) {
-            System.err.println("User not found with id: " + id);
-            throw new IllegalArgumentException("User with id " + id + " not found");
-        }
+        UserSummary user = userRepository.findSummaryById(id)
+                .orElseThrow(() -> {
+                    System.err.println("User not found with id: " + id);
+                    return new IllegalArgumentException("User with id " + id + " not found");
+                });
         userRepository.deleteById(id);
+        userCache.removeUserFromCache(user.getUsername());
         System.out.println("User deleted with id: " + id);
     }
 }
\ No newline at end of file
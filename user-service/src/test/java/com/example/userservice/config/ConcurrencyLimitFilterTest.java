@@ -0,0 +1,75 @@
+package com.example.userservice.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ConcurrencyLimitFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(meterRegistry, 1, Duration.ofMillis(10));
+
+    @Test
+    void rejectsRequestsBeyondLimitWithRetryAfter() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> holder = executor.submit(() -> {
+                filter.doFilter(new MockHttpServletRequest("GET", "/users"), new MockHttpServletResponse(),
+                        (request, response) -> {
+                            entered.countDown();
+                            try {
+                                release.await();
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                        });
+                return null;
+            });
+            entered.await(5, TimeUnit.SECONDS);
+
+            MockHttpServletResponse rejected = new MockHttpServletResponse();
+            filter.doFilter(new MockHttpServletRequest("GET", "/users"), rejected, new MockFilterChain());
+
+            assertEquals(503, rejected.getStatus());
+            assertEquals("1", rejected.getHeader(HttpHeaders.RETRY_AFTER));
+            assertEquals(1.0, meterRegistry.get("users.concurrency.rejected").counter().count());
+
+            release.countDown();
+            holder.get(5, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+
+        MockHttpServletResponse admitted = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/users"), admitted, new MockFilterChain());
+        assertEquals(200, admitted.getStatus());
+        assertEquals(0.0, meterRegistry.get("users.concurrency.in.flight").gauge().value());
+    }
+
+    @Test
+    void actuatorIsNotLimited() throws Exception {
+        ConcurrencyLimitFilter closed = new ConcurrencyLimitFilter(meterRegistry, 0, Duration.ZERO);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/actuator/health");
+        request.setRequestURI("/actuator/health");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        closed.doFilter(request, response, new MockFilterChain());
+
+        assertEquals(200, response.getStatus());
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.userservice.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class JwtAuthenticationFilterTest {
+
+    private static final String SECRET = "test-identity-secret";
+    private static final JwtPrincipal BOB = new JwtPrincipal("bob", 7L, List.of("ROLE_USER"));
+    private static final JwtPrincipal ALICE = new JwtPrincipal("alice", 8L, List.of("ROLE_USER"));
+
+    private final JwtVerifier jwtVerifier = mock(JwtVerifier.class);
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void trustedSignedHeadersSkipTokenParsing() throws Exception {
+        MockHttpServletRequest request = request(signedBy(SECRET, BOB), null);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter(true).doFilter(request, response, new MockFilterChain());
+
+        assertEquals(200, response.getStatus());
+        assertEquals(BOB, request.getAttribute(JwtVerifier.PRINCIPAL_ATTRIBUTE));
+        assertEquals(BOB, SecurityContextHolder.getContext().getAuthentication().getPrincipal());
+        verify(jwtVerifier, never()).verify(anyString());
+    }
+
+    @Test
+    void headersAreIgnoredWhenTrustIsDisabled() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter(false).doFilter(request(signedBy(SECRET, BOB), null), response, new MockFilterChain());
+
+        assertEquals(403, response.getStatus());
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    @Test
+    void headersSignedWithAnotherSecretFallBackToToken() throws Exception {
+        when(jwtVerifier.verify("token")).thenReturn(ALICE);
+        MockHttpServletRequest request = request(signedBy("forged-secret", BOB), "Bearer token");
+
+        filter(true).doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        assertEquals(ALICE, request.getAttribute(JwtVerifier.PRINCIPAL_ATTRIBUTE));
+    }
+
+    private JwtAuthenticationFilter filter(boolean trusted) {
+        return new JwtAuthenticationFilter(jwtVerifier, new IdentityHeaders(SECRET, Duration.ofSeconds(60), trusted));
+    }
+
+    private static HttpHeaders signedBy(String secret, JwtPrincipal principal) {
+        HttpHeaders headers = new HttpHeaders();
+        new IdentityHeaders(secret, Duration.ofSeconds(60), true).write(headers, principal);
+        return headers;
+    }
+
+    private static MockHttpServletRequest request(HttpHeaders identity, String authorization) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/users");
+        identity.forEach((name, values) -> request.addHeader(name, values.get(0)));
+        if (authorization != null) {
+            request.addHeader(HttpHeaders.AUTHORIZATION, authorization);
+        }
+        return request;
+    }
+}
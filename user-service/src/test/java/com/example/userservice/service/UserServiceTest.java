@@ -0,0 +1,137 @@
+package com.example.userservice.service;
+
+import com.example.userservice.controller.AuthController;
+import com.example.userservice.dto.RegistrationRequest;
+import com.example.userservice.model.User;
+import com.example.userservice.repository.UserRepository;
+import com.example.userservice.repository.UserSummary;
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.sql.SQLException;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UserServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+    @Mock
+    private UserCache userCache;
+
+    private UserService userService;
+
+    @BeforeEach
+    void setUp() {
+        userService = new UserService(userRepository, passwordEncoder, userCache);
+    }
+
+    @Test
+    void registersNewEntityWithDefaultRole() {
+        when(passwordEncoder.encode("secret")).thenReturn("hash");
+        when(userRepository.saveAndFlush(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        userService.saveUser(request("alice"));
+
+        ArgumentCaptor<User> saved = ArgumentCaptor.forClass(User.class);
+        verify(userRepository).saveAndFlush(saved.capture());
+        assertNull(saved.getValue().getId());
+        assertEquals("hash", saved.getValue().getPassword());
+        assertEquals("ROLE_USER", saved.getValue().getRoles());
+        verify(userCache).removeUserFromCache("alice");
+    }
+
+    @Test
+    void usernameConstraintViolationMapsToUserAlreadyExists() {
+        failSaveWith(violation("user.UK_USER_USERNAME", ConstraintViolationException.ConstraintKind.UNIQUE));
+
+        assertThrows(UserAlreadyExistsException.class, () -> userService.saveUser(request("alice")));
+    }
+
+    @Test
+    void duplicateUsernameRegistrationReturnsConflict() {
+        failSaveWith(violation("user.uk_user_username", ConstraintViolationException.ConstraintKind.UNIQUE));
+        AuthController controller = new AuthController(userService, mock(AuthenticationManager.class));
+
+        assertEquals(HttpStatus.CONFLICT, controller.register(request("alice")).getStatusCode());
+    }
+
+    @Test
+    void invalidUserDataRegistrationReturnsBadRequest() {
+        failSaveWith(violation(null, ConstraintViolationException.ConstraintKind.OTHER));
+        AuthController controller = new AuthController(userService, mock(AuthenticationManager.class));
+
+        assertEquals(HttpStatus.BAD_REQUEST, controller.register(request("alice")).getStatusCode());
+    }
+
+    @Test
+    void legacyUniqueKeyMapsToUserAlreadyExistsWhenNameIsTaken() {
+        failSaveWith(violation("UK_r43af9ap4edm43mmtq01oddj6", ConstraintViolationException.ConstraintKind.UNIQUE));
+        when(userRepository.findSummaryByUsername("alice")).thenReturn(Optional.of(mock(UserSummary.class)));
+
+        assertThrows(UserAlreadyExistsException.class, () -> userService.saveUser(request("alice")));
+    }
+
+    @Test
+    void otherUniqueKeyIsRethrownWhenNameIsFree() {
+        DataIntegrityViolationException failure =
+                failSaveWith(violation("uk_user_email", ConstraintViolationException.ConstraintKind.UNIQUE));
+        when(userRepository.findSummaryByUsername("alice")).thenReturn(Optional.empty());
+
+        assertSame(failure, assertThrows(DataIntegrityViolationException.class, () -> userService.saveUser(request("alice"))));
+    }
+
+    @Test
+    void nonUniqueViolationIsRethrown() {
+        DataIntegrityViolationException failure =
+                failSaveWith(violation(null, ConstraintViolationException.ConstraintKind.OTHER));
+
+        assertSame(failure, assertThrows(DataIntegrityViolationException.class, () -> userService.saveUser(request("alice"))));
+    }
+
+    @Test
+    void blankUsernameIsRejectedBeforeSaving() {
+        assertThrows(IllegalArgumentException.class, () -> userService.saveUser(request(" ")));
+    }
+
+    private DataIntegrityViolationException failSaveWith(ConstraintViolationException violation) {
+        DataIntegrityViolationException failure = new DataIntegrityViolationException("could not execute statement", violation);
+        when(userRepository.saveAndFlush(any())).thenThrow(failure);
+        return failure;
+    }
+
+    private static ConstraintViolationException violation(String constraint, ConstraintViolationException.ConstraintKind kind) {
+        SQLException sqlException = new SQLException("constraint violated", "23000", 0);
+        return new ConstraintViolationException("constraint violated", sqlException, "insert into user", kind, constraint);
+    }
+
+    private static RegistrationRequest request(String username) {
+        RegistrationRequest request = new RegistrationRequest();
+        request.setUsername(username);
+        request.setPassword("secret");
+        return request;
+    }
+}